@@ -35,37 +35,39 @@ public class ConstantsUtil {
   }
 
   private static Instruction getInstructionInstance(int opcode, int bytecode_version) {
-    try {
-      Instruction instr;
+    Instruction instr;
 
-      if ((opcode >= CodeConstants.opc_ifeq &&
-           opcode <= CodeConstants.opc_if_acmpne) ||
-          opcode == CodeConstants.opc_ifnull ||
-          opcode == CodeConstants.opc_ifnonnull) {
-        instr = new IfInstruction();
+    if ((opcode >= CodeConstants.opc_ifeq &&
+         opcode <= CodeConstants.opc_if_acmpne) ||
+        opcode == CodeConstants.opc_ifnull ||
+        opcode == CodeConstants.opc_ifnonnull) {
+      instr = new IfInstruction();
+    }
+    else {
+      if (opcode < 0 || opcode >= opcodeFactories.length) {
+        return null;
       }
-      else {
-
-        Class cl = opcodeClasses[opcode];
 
-        if (opcode == CodeConstants.opc_invokedynamic && bytecode_version < CodeConstants.BYTECODE_JAVA_7) {
-          cl = null; // instruction unused in Java 6 and before
-        }
+      InstructionFactory factory = opcodeFactories[opcode];
 
-        if (cl == null) {
-          instr = new Instruction();
-        }
-        else {
-          instr = (Instruction)cl.newInstance();
-        }
+      if (opcode == CodeConstants.opc_invokedynamic && bytecode_version < CodeConstants.BYTECODE_JAVA_7) {
+        factory = null; // instruction unused in Java 6 and before
       }
 
-      instr.opcode = opcode;
-      return instr;
-    }
-    catch (Exception ex) {
-      return null;
+      if (factory == null) {
+        instr = new Instruction();
+      }
+      else {
+        instr = factory.create();
+      }
     }
+
+    instr.opcode = opcode;
+    return instr;
+  }
+
+  private interface InstructionFactory {
+    Instruction create();
   }
 
 
@@ -275,7 +277,7 @@ public class ConstantsUtil {
     "jsr_w"                        //    "jsr_w"
   };
 
-  private static final Class[] opcodeClasses = {
+  private static final InstructionFactory[] opcodeFactories = {
     null,                                //    "nop",
     null,                        //    "aconst_null",
     null,                        //    "iconst_m1",
@@ -292,16 +294,36 @@ public class ConstantsUtil {
     null,                                //    "fconst_2",
     null,                                //    "dconst_0",
     null,                                //    "dconst_1",
-    BIPUSH.class,                        //    "bipush",
-    SIPUSH.class,                        //    "sipush",
-    LDC.class,                        //    "ldc",
-    LDC_W.class,                        //    "ldc_w",
-    LDC2_W.class,                        //    "ldc2_w",
-    ILOAD.class,                        //    "iload",
-    LLOAD.class,                        //    "lload",
-    FLOAD.class,                        //    "fload",
-    DLOAD.class,                        //    "dload",
-    ALOAD.class,                        //    "aload",
+    new InstructionFactory() {        //    "bipush",
+      public Instruction create() { return new BIPUSH(); }
+    },
+    new InstructionFactory() {        //    "sipush",
+      public Instruction create() { return new SIPUSH(); }
+    },
+    new InstructionFactory() {        //    "ldc",
+      public Instruction create() { return new LDC(); }
+    },
+    new InstructionFactory() {        //    "ldc_w",
+      public Instruction create() { return new LDC_W(); }
+    },
+    new InstructionFactory() {        //    "ldc2_w",
+      public Instruction create() { return new LDC2_W(); }
+    },
+    new InstructionFactory() {        //    "iload",
+      public Instruction create() { return new ILOAD(); }
+    },
+    new InstructionFactory() {        //    "lload",
+      public Instruction create() { return new LLOAD(); }
+    },
+    new InstructionFactory() {        //    "fload",
+      public Instruction create() { return new FLOAD(); }
+    },
+    new InstructionFactory() {        //    "dload",
+      public Instruction create() { return new DLOAD(); }
+    },
+    new InstructionFactory() {        //    "aload",
+      public Instruction create() { return new ALOAD(); }
+    },
     null,                        //    "iload_0",
     null,                        //    "iload_1",
     null,                        //    "iload_2",
@@ -330,11 +352,21 @@ public class ConstantsUtil {
     null,                                //    "baload",
     null,                                //    "caload",
     null,                                //    "saload",
-    ISTORE.class,                        //    "istore",
-    LSTORE.class,                        //    "lstore",
-    FSTORE.class,                        //    "fstore",
-    DSTORE.class,                        //    "dstore",
-    ASTORE.class,                        //    "astore",
+    new InstructionFactory() {        //    "istore",
+      public Instruction create() { return new ISTORE(); }
+    },
+    new InstructionFactory() {        //    "lstore",
+      public Instruction create() { return new LSTORE(); }
+    },
+    new InstructionFactory() {        //    "fstore",
+      public Instruction create() { return new FSTORE(); }
+    },
+    new InstructionFactory() {        //    "dstore",
+      public Instruction create() { return new DSTORE(); }
+    },
+    new InstructionFactory() {        //    "astore",
+      public Instruction create() { return new ASTORE(); }
+    },
     null,                        //    "istore_0",
     null,                        //    "istore_1",
     null,                        //    "istore_2",
@@ -408,7 +440,9 @@ public class ConstantsUtil {
     null,                        //    "lor",
     null,                        //    "ixor",
     null,                        //    "lxor",
-    IINC.class,                        //    "iinc",
+    new InstructionFactory() {        //    "iinc",
+      public Instruction create() { return new IINC(); }
+    },
     null,                        //    "i2l",
     null,                        //    "i2f",
     null,                        //    "i2d",
@@ -443,40 +477,84 @@ public class ConstantsUtil {
     null,                //    "if_icmple",
     null,                //    "if_acmpeq",
     null,                //    "if_acmpne",
-    GOTO.class,                        //    "goto",
-    JSR.class,                        //    "jsr",
-    RET.class,                        //    "ret",
-    TABLESWITCH.class,                        //    "tableswitch",
-    LOOKUPSWITCH.class,                        //    "lookupswitch",
+    new InstructionFactory() {        //    "goto",
+      public Instruction create() { return new GOTO(); }
+    },
+    new InstructionFactory() {        //    "jsr",
+      public Instruction create() { return new JSR(); }
+    },
+    new InstructionFactory() {        //    "ret",
+      public Instruction create() { return new RET(); }
+    },
+    new InstructionFactory() {        //    "tableswitch",
+      public Instruction create() { return new TABLESWITCH(); }
+    },
+    new InstructionFactory() {        //    "lookupswitch",
+      public Instruction create() { return new LOOKUPSWITCH(); }
+    },
     null,                        //    "ireturn",
     null,                        //    "lreturn",
     null,                                //    "freturn",
     null,                                //    "dreturn",
     null,                                //    "areturn",
     null,                                //    "return",
-    GETSTATIC.class,                //    "getstatic",
-    PUTSTATIC.class,                //    "putstatic",
-    GETFIELD.class,                //    "getfield",
-    PUTFIELD.class,                //    "putfield",
-    INVOKEVIRTUAL.class,                //    "invokevirtual",
-    INVOKESPECIAL.class,                //    "invokespecial",
-    INVOKESTATIC.class,                //    "invokestatic",
-    INVOKEINTERFACE.class,                //    "invokeinterface",
-    INVOKEDYNAMIC.class,                //    "xxxunusedxxx" Java 6 and before, "invokedynamic" Java 7 and later
-    NEW.class,                                //    "new",
-    NEWARRAY.class,                //    "newarray",
-    ANEWARRAY.class,                //    "anewarray",
+    new InstructionFactory() {        //    "getstatic",
+      public Instruction create() { return new GETSTATIC(); }
+    },
+    new InstructionFactory() {        //    "putstatic",
+      public Instruction create() { return new PUTSTATIC(); }
+    },
+    new InstructionFactory() {        //    "getfield",
+      public Instruction create() { return new GETFIELD(); }
+    },
+    new InstructionFactory() {        //    "putfield",
+      public Instruction create() { return new PUTFIELD(); }
+    },
+    new InstructionFactory() {        //    "invokevirtual",
+      public Instruction create() { return new INVOKEVIRTUAL(); }
+    },
+    new InstructionFactory() {        //    "invokespecial",
+      public Instruction create() { return new INVOKESPECIAL(); }
+    },
+    new InstructionFactory() {        //    "invokestatic",
+      public Instruction create() { return new INVOKESTATIC(); }
+    },
+    new InstructionFactory() {        //    "invokeinterface",
+      public Instruction create() { return new INVOKEINTERFACE(); }
+    },
+    new InstructionFactory() {        //    "xxxunusedxxx" Java 6 and before, "invokedynamic" Java 7 and later
+      public Instruction create() { return new INVOKEDYNAMIC(); }
+    },
+    new InstructionFactory() {        //    "new",
+      public Instruction create() { return new NEW(); }
+    },
+    new InstructionFactory() {        //    "newarray",
+      public Instruction create() { return new NEWARRAY(); }
+    },
+    new InstructionFactory() {        //    "anewarray",
+      public Instruction create() { return new ANEWARRAY(); }
+    },
     null,                                //    "arraylength",
     null,                                //    "athrow",
-    CHECKCAST.class,                //    "checkcast",
-    INSTANCEOF.class,                //    "instanceof",
+    new InstructionFactory() {        //    "checkcast",
+      public Instruction create() { return new CHECKCAST(); }
+    },
+    new InstructionFactory() {        //    "instanceof",
+      public Instruction create() { return new INSTANCEOF(); }
+    },
     null,                                //    "monitorenter",
     null,                                //    "monitorexit",
     null,                                //    "wide",
-    MULTIANEWARRAY.class,                //    "multianewarray",
+    new InstructionFactory() {        //    "multianewarray",
+      public Instruction create() { return new MULTIANEWARRAY(); }
+    },
     null,                        //    "ifnull",
     null,                //    "ifnonnull",
-    GOTO_W.class,                        //    "goto_w",
-    JSR_W.class                                //    "jsr_w"
+    new InstructionFactory() {        //    "goto_w",
+      public Instruction create() { return new GOTO_W(); }
+    },
+    new InstructionFactory() {        //    "jsr_w"
+      public Instruction create() { return new JSR_W(); }
+    }
   };
 }
@@ -24,8 +24,11 @@ public class FullInstructionSequence extends InstructionSequence {
   // constructors
   // *****************************************************************************
 
-  public FullInstructionSequence(VBStyleCollection<Instruction, Integer> collinstr, ExceptionTable extable) {
+  private final InstructionStream stream;
+
+  public FullInstructionSequence(VBStyleCollection<Instruction, Integer> collinstr, ExceptionTable extable, InstructionStream stream) {
     super(collinstr);
+    this.stream = stream;
     this.exceptionTable = extable;
 
     // translate raw exception handlers to instr
@@ -35,4 +38,9 @@ public class FullInstructionSequence extends InstructionSequence {
       handler.handler_instr = this.getPointerByAbsOffset(handler.handler);
     }
   }
+
+  // compact encoding of the same instructions
+  public InstructionStream getStream() {
+    return stream;
+  }
 }
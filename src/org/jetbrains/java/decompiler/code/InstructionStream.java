@@ -0,0 +1,161 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.code;
+
+import java.util.Arrays;
+
+/**
+ * Compact, read-only encoding of the instructions of a method: opcodes, offsets and operands are kept in
+ * parallel int arrays instead of one object per instruction. {@link Instruction} objects are created on
+ * demand by {@link #getInstr(int)}.
+ */
+public class InstructionStream {
+
+  private static final int OPCODE_MASK = 0xFF;
+  private static final int GROUP_SHIFT = 8;
+  private static final int GROUP_MASK = 0xFF;
+  private static final int WIDE_FLAG = 1 << 16;
+
+  private static final int[] NO_OPERANDS = new int[0];
+
+  private final int bytecode_version;
+
+  private int length = 0;
+
+  // opcode | group << GROUP_SHIFT | WIDE_FLAG
+  private int[] codes;
+
+  private int[] offsets;
+
+  // operands of instruction i are operandPool[operandStart[i] .. operandStart[i + 1])
+  private int[] operandStart;
+
+  private int[] operandPool;
+
+  // bytecode offset -> instruction index + 1, 0 means 'no instruction at this offset'
+  private int[] offsetIndex = new int[0];
+
+  public InstructionStream(int bytecode_version, int capacity) {
+    this.bytecode_version = bytecode_version;
+
+    capacity = Math.max(capacity, 4);
+    codes = new int[capacity];
+    offsets = new int[capacity];
+    operandStart = new int[capacity + 1];
+    operandPool = new int[capacity];
+  }
+
+  public void addInstruction(int opcode, boolean wide, int group, int offset, int[] operands, int count) {
+    if (length == codes.length) {
+      int capacity = length * 2;
+      codes = Arrays.copyOf(codes, capacity);
+      offsets = Arrays.copyOf(offsets, capacity);
+      operandStart = Arrays.copyOf(operandStart, capacity + 1);
+    }
+
+    int start = operandStart[length];
+    if (start + count > operandPool.length) {
+      operandPool = Arrays.copyOf(operandPool, Math.max(start + count, operandPool.length * 2));
+    }
+    if (count > 0) {
+      System.arraycopy(operands, 0, operandPool, start, count);
+    }
+
+    codes[length] = opcode | group << GROUP_SHIFT | (wide ? WIDE_FLAG : 0);
+    offsets[length] = offset;
+    operandStart[length + 1] = start + count;
+
+    if (offset >= 0) {
+      if (offset >= offsetIndex.length) {
+        offsetIndex = Arrays.copyOf(offsetIndex, Math.max(offset + 1, offsetIndex.length * 2));
+      }
+      offsetIndex[offset] = length + 1;
+    }
+
+    length++;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public int getOpcode(int index) {
+    return codes[index] & OPCODE_MASK;
+  }
+
+  public int getGroup(int index) {
+    return codes[index] >>> GROUP_SHIFT & GROUP_MASK;
+  }
+
+  public boolean isWide(int index) {
+    return (codes[index] & WIDE_FLAG) != 0;
+  }
+
+  public int getOffset(int index) {
+    return offsets[index];
+  }
+
+  public int getOperandsCount(int index) {
+    return operandStart[index + 1] - operandStart[index];
+  }
+
+  public int getOperand(int index, int operand) {
+    return operandPool[operandStart[index] + operand];
+  }
+
+  public int getBytecodeVersion() {
+    return bytecode_version;
+  }
+
+  // index of the instruction at the given bytecode offset, -1 if there is none
+  public int getPointerByAbsOffset(int offset) {
+    return offset >= 0 && offset < offsetIndex.length ? offsetIndex[offset] - 1 : -1;
+  }
+
+  // same as InstructionSequence.getPointerByRelOffset() with the pointer set to the given index
+  public int getPointerByRelOffset(int index, int offset) {
+    return getPointerByAbsOffset(offsets[index] + offset);
+  }
+
+  // index of the jump target of a GROUP_JUMP instruction
+  public int getJumpDestination(int index) {
+    return getPointerByRelOffset(index, getOperand(index, 0));
+  }
+
+  // indices of the targets of a GROUP_SWITCH instruction, the default one last
+  public int[] getSwitchDestinations(int index) {
+    int pref = getOpcode(index) == CodeConstants.opc_tableswitch ? 3 : 2;
+    int step = getOpcode(index) == CodeConstants.opc_tableswitch ? 1 : 2;
+    int count = (getOperandsCount(index) - pref) / step;
+
+    int[] destinations = new int[count + 1];
+    for (int i = 0; i < count; i++) {
+      destinations[i] = getPointerByRelOffset(index, getOperand(index, pref + i * step + step - 1));
+    }
+    destinations[count] = getPointerByRelOffset(index, getOperand(index, 0));
+
+    return destinations;
+  }
+
+  /**
+   * Creates a new, not yet initialized instruction object for the given index.
+   */
+  public Instruction getInstr(int index) {
+    int start = operandStart[index], count = operandStart[index + 1] - start;
+    int[] operands = count == 0 ? NO_OPERANDS : Arrays.copyOfRange(operandPool, start, start + count);
+    return ConstantsUtil.getInstructionInstance(getOpcode(index), isWide(index), getGroup(index), bytecode_version, operands);
+  }
+}
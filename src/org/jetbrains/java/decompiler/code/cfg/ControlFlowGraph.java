@@ -239,43 +239,62 @@ public class ControlFlowGraph implements CodeConstants {
     setFirstAndLastBlocks();
   }
 
+  /**
+   * Returns true if the code forms a single basic block: no exception handlers, no jumps, switches or
+   * subroutines, and no return or throw before the last instruction.
+   */
+  public static boolean isLinear(InstructionSequence seq) {
+
+    if (!seq.getExceptionTable().getHandlers().isEmpty()) {
+      return false;
+    }
+
+    InstructionStream stream = getStream(seq);
+
+    int last = stream.length() - 1;
+    for (int i = 0; i <= last; i++) {
+      int group = stream.getGroup(i);
+      if (group == GROUP_JUMP || group == GROUP_SWITCH || group == GROUP_RETURN && i < last || stream.getOpcode(i) == opc_ret) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // graphs are only built from the code of a method
+  private static InstructionStream getStream(InstructionSequence seq) {
+    return ((FullInstructionSequence)seq).getStream();
+  }
+
   private static short[] findStartInstructions(InstructionSequence seq) {
 
-    int len = seq.length();
-    short[] inststates = new short[len];
+    InstructionStream stream = getStream(seq);
 
-    Set<Integer> excSet = new HashSet<Integer>();
+    int len = stream.length();
+    short[] inststates = new short[len];
 
+    // exception blocks
     for (ExceptionHandler handler : seq.getExceptionTable().getHandlers()) {
-      excSet.add(handler.from_instr);
-      excSet.add(handler.to_instr);
-      excSet.add(handler.handler_instr);
+      markInstruction(inststates, handler.from_instr);
+      markInstruction(inststates, handler.to_instr); // -1 if the range ends with the code
+      markInstruction(inststates, handler.handler_instr);
     }
 
-
     for (int i = 0; i < len; i++) {
-
-      // exception blocks
-      if (excSet.contains(new Integer(i))) {
-        inststates[i] = 1;
-      }
-
-      Instruction instr = seq.getInstr(i);
-      switch (instr.group) {
+      switch (stream.getGroup(i)) {
         case GROUP_JUMP:
-          inststates[((JumpInstruction)instr).destination] = 1;
+          inststates[stream.getJumpDestination(i)] = 1;
         case GROUP_RETURN:
           if (i + 1 < len) {
             inststates[i + 1] = 1;
           }
           break;
         case GROUP_SWITCH:
-          SwitchInstruction swinstr = (SwitchInstruction)instr;
-          int[] dests = swinstr.getDestinations();
+          int[] dests = stream.getSwitchDestinations(i);
           for (int j = dests.length - 1; j >= 0; j--) {
             inststates[dests[j]] = 1;
           }
-          inststates[swinstr.getDefaultdest()] = 1;
           if (i + 1 < len) {
             inststates[i + 1] = 1;
           }
@@ -288,6 +307,12 @@ public class ControlFlowGraph implements CodeConstants {
     return inststates;
   }
 
+  private static void markInstruction(short[] inststates, int index) {
+    if (index >= 0 && index < inststates.length) {
+      inststates[index] = 1;
+    }
+  }
+
 
   private VBStyleCollection<BasicBlock, Integer> createBasicBlocks(short[] startblock,
                                                                    InstructionSequence instrseq,
@@ -752,7 +777,7 @@ public class ControlFlowGraph implements CodeConstants {
 
         DataPoint point = new DataPoint();
         point.setLocalVariables(new ArrayList<VarType>(data.getLocalVariables()));
-        point.getStack().push(new VarType(CodeConstants.TYPE_OBJECT, 0, null));
+        point.getStack().push(VarType.of(CodeConstants.TYPE_OBJECT, 0, null));
 
         removeJsrInstructions(pool, suc, point);
       }
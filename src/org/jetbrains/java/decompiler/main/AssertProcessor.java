@@ -37,7 +37,7 @@ import java.util.List;
 
 public class AssertProcessor {
 
-  private static final VarType CLASS_ASSERTION_ERROR = new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/AssertionError");
+  private static final VarType CLASS_ASSERTION_ERROR = VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/AssertionError");
 
   public static void buildAssertions(ClassNode node) {
 
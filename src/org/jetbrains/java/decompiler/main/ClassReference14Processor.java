@@ -65,7 +65,7 @@ public class ClassReference14Processor {
     constr.setDescriptor(MethodDescriptor.parseDescriptor("()V"));
 
     NewExprent newexpr =
-      new NewExprent(new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/NoClassDefFoundError"), new ArrayList<Exprent>(), null);
+      new NewExprent(VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/NoClassDefFoundError"), new ArrayList<Exprent>(), null);
     newexpr.setConstructor(constr);
 
     InvocationExprent invcause = new InvocationExprent();
@@ -75,7 +75,7 @@ public class ClassReference14Processor {
     invcause.setDescriptor(MethodDescriptor.parseDescriptor("(Ljava/lang/Throwable;)Ljava/lang/Throwable;"));
     invcause.setInstance(newexpr);
     invcause.setLstParameters(
-      Arrays.asList(new Exprent[]{new VarExprent(2, new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/ClassNotFoundException"), null)}));
+      Arrays.asList(new Exprent[]{new VarExprent(2, VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/ClassNotFoundException"), null)}));
 
     handlerexprent = new ExitExprent(ExitExprent.EXIT_THROW,
                                      invcause,
@@ -190,7 +190,7 @@ public class ClassReference14Processor {
           CatchStatement cst = (CatchStatement)root.getFirst();
           if (cst.getStats().size() == 2 && cst.getFirst().type == Statement.TYPE_BASICBLOCK &&
               cst.getStats().get(1).type == Statement.TYPE_BASICBLOCK &&
-              cst.getVars().get(0).getVarType().equals(new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/ClassNotFoundException"))) {
+              cst.getVars().get(0).getVarType().equals(VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/ClassNotFoundException"))) {
 
             BasicBlockStatement body = (BasicBlockStatement)cst.getFirst();
             BasicBlockStatement handler = (BasicBlockStatement)cst.getStats().get(1);
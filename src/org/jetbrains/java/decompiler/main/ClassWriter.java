@@ -101,7 +101,7 @@ public class ClassWriter {
         }
         else {
           // reference to a static method
-          buffer.append(ExprProcessor.getCastTypeName(new VarType(node.lambdaInformation.content_class_name, false)));
+          buffer.append(ExprProcessor.getCastTypeName(VarType.fromSignature(node.lambdaInformation.content_class_name, false)));
         }
 
         buffer.append("::");
@@ -354,7 +354,7 @@ public class ClassWriter {
     buffer.append(' ');
 
     if (!isEnum && !isInterface && cl.superClass != null) {
-      VarType supertype = new VarType(cl.superClass.getString(), true);
+      VarType supertype = VarType.fromSignature(cl.superClass.getString(), true);
       if (!VarType.VARTYPE_OBJECT.equals(supertype)) {
         buffer.append("extends ");
         buffer.append(ExprProcessor.getCastTypeName(descriptor == null ? supertype : descriptor.superclass));
@@ -370,7 +370,7 @@ public class ClassWriter {
           if (i > 0) {
             buffer.append(", ");
           }
-          VarType iface = descriptor == null ? new VarType(cl.getInterface(i), true) : descriptor.superinterfaces.get(i);
+          VarType iface = descriptor == null ? VarType.fromSignature(cl.getInterface(i), true) : descriptor.superinterfaces.get(i);
           buffer.append(ExprProcessor.getCastTypeName(iface));
         }
         buffer.append(' ');
@@ -407,7 +407,7 @@ public class ClassWriter {
       appendModifiers(buffer, fd.getAccessFlags(), FIELD_ALLOWED, isInterface, FIELD_EXCLUDED);
     }
 
-    VarType fieldType = new VarType(fd.getDescriptor(), false);
+    VarType fieldType = VarType.fromSignature(fd.getDescriptor(), false);
 
     GenericFieldDescriptor descriptor = fd.getSignature();
 
@@ -656,7 +656,8 @@ public class ClassWriter {
           DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN);
           descriptor = null;
         }
-        md.addGenericDescriptor(descriptor);
+        md = md.withGenericDescriptor(descriptor);
+        DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_DESCRIPTOR, md);
       }
       boolean throwsExceptions = false;
       int paramCount = 0;
@@ -755,7 +756,7 @@ public class ClassWriter {
             if (i > 0) {
               buffer.append(", ");
             }
-            VarType type = new VarType(attr.getExcClassname(i, cl.getPool()), true);
+            VarType type = VarType.fromSignature(attr.getExcClassname(i, cl.getPool()), true);
             if (descriptor != null && !descriptor.exceptions.isEmpty()) {
               type = descriptor.exceptions.get(i);
             }
@@ -19,6 +19,7 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.collectors.ImportCollector;
+import org.jetbrains.java.decompiler.main.collectors.ShortNameTable;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IIdentifierRenamer;
@@ -47,6 +48,7 @@ public class ClassesProcessor {
   public static final int AVERAGE_CLASS_SIZE = 16 * 1024;
 
   private final Map<String, ClassNode> mapRootClasses = new HashMap<String, ClassNode>();
+  private final ShortNameTable shortNameTable;
 
   private static class Inner {
     private String simpleName;
@@ -70,6 +72,8 @@ public class ClassesProcessor {
 
   public ClassesProcessor(StructContext context) {
 
+    shortNameTable = new ShortNameTable(context);
+
     Map<String, Inner> mapInnerClasses = new HashMap<String, Inner>();
     Map<String, Set<String>> mapNestedClassReferences = new HashMap<String, Set<String>>();
     Map<String, Set<String>> mapEnclosingClassReferences = new HashMap<String, Set<String>>();
@@ -258,10 +262,10 @@ public class ClassesProcessor {
                       String message = "Inconsistent anonymous class definition: " + cl.qualifiedName;
                       DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN);
                     }
-                    nestedNode.anonymousClassType = new VarType(cl.getInterface(0), true);
+                    nestedNode.anonymousClassType = VarType.fromSignature(cl.getInterface(0), true);
                   }
                   else {
-                    nestedNode.anonymousClassType = new VarType(cl.superClass.getString(), true);
+                    nestedNode.anonymousClassType = VarType.fromSignature(cl.superClass.getString(), true);
                   }
                 }
                 else if (nestedNode.type == ClassNode.CLASS_LOCAL) {
@@ -395,6 +399,10 @@ public class ClassesProcessor {
     return mapRootClasses;
   }
 
+  public ShortNameTable getShortNameTable() {
+    return shortNameTable;
+  }
+
 
   public static class ClassNode implements Comparable<ClassNode> {
 
@@ -444,7 +452,7 @@ public class ClassesProcessor {
       lambdaInformation.content_method_key =
         InterpreterUtil.makeUniqueKey(lambdaInformation.content_method_name, lambdaInformation.content_method_descriptor);
 
-      anonymousClassType = new VarType(lambda_class_name, true);
+      anonymousClassType = VarType.fromSignature(lambda_class_name, true);
 
       boolean is_method_reference = (content_class_name != classStruct.qualifiedName);
       if (!is_method_reference) { // content method in the same class, check synthetic flag
@@ -18,12 +18,15 @@ package org.jetbrains.java.decompiler.main;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.collectors.ImportCollector;
+import org.jetbrains.java.decompiler.main.collectors.PassProfiler;
 import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
+import org.jetbrains.java.decompiler.main.collectors.WorkBudget;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IVariableNamingFactory;
 import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.StructContext;
+import org.jetbrains.java.decompiler.struct.gen.DescriptorCache;
 import org.jetbrains.java.decompiler.util.JADNameProvider;
 
 import java.util.HashMap;
@@ -47,14 +50,20 @@ public class DecompilerContext {
   private ImportCollector importCollector;
   private VarNamesCollector varNamescollector;
   private CounterContainer counterContainer;
+  private WorkBudget workBudget = new WorkBudget(0);
   private ClassesProcessor classProcessor;
   private PoolInterceptor poolInterceptor;
   private IFernflowerLogger logger;
   private BytecodeSourceMapper bytecodeSourceMapper;
   private IVariableNamingFactory renamerFactory;
+  private final DescriptorCache descriptorCache = new DescriptorCache();
+  private final PassProfiler passProfiler;
 
   private DecompilerContext(Map<String, Object> properties) {
     this.properties = properties;
+
+    Object report = properties.get(IFernflowerPreferences.PROFILE_REPORT);
+    passProfiler = new PassProfiler(report != null && report.toString().length() > 0);
   }
 
   public static void initContext(Map<String, Object> propertiesCustom, IFernflowerLogger logger) {
@@ -133,6 +142,14 @@ public class DecompilerContext {
     getCurrentContext().counterContainer = counterContainer;
   }
 
+  public static WorkBudget getWorkBudget() {
+    return getCurrentContext().workBudget;
+  }
+
+  public static void setWorkBudget(WorkBudget workBudget) {
+    getCurrentContext().workBudget = workBudget;
+  }
+
   public static ClassesProcessor getClassProcessor() {
     return getCurrentContext().classProcessor;
   }
@@ -157,6 +174,16 @@ public class DecompilerContext {
     getCurrentContext().bytecodeSourceMapper = bytecodeSourceMapper;
   }
 
+  // null outside of a decompiler context, parsed descriptors are not cached then
+  public static DescriptorCache getDescriptorCache() {
+    DecompilerContext context = getCurrentContext();
+    return context == null ? null : context.descriptorCache;
+  }
+
+  public static PassProfiler getPassProfiler() {
+    return getCurrentContext().passProfiler;
+  }
+
   public static IFernflowerLogger getLogger() {
     return getCurrentContext().logger;
   }
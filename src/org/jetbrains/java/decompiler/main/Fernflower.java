@@ -17,6 +17,7 @@ package org.jetbrains.java.decompiler.main;
 
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.PassProfiler;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger.Severity;
@@ -31,6 +32,7 @@ import org.jetbrains.java.decompiler.util.ClasspathScanner;
 import org.jetbrains.java.decompiler.util.JADNameProvider;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -66,6 +68,23 @@ public class Fernflower implements IDecompiledData {
     DecompilerContext.setClassProcessor(classesProcessor);
 
     structContext.saveContext();
+
+    IFernflowerLogger logger = DecompilerContext.getLogger();
+    if (logger.accepts(Severity.TRACE)) {
+      logger.writeMessage(DecompilerContext.getDescriptorCache().getStatistics(), Severity.TRACE);
+    }
+
+    PassProfiler profiler = DecompilerContext.getPassProfiler();
+    if (profiler.isEnabled()) {
+      String prefix = DecompilerContext.getProperty(IFernflowerPreferences.PROFILE_REPORT).toString();
+      try {
+        profiler.writeReport(prefix);
+        DecompilerContext.getLogger().writeMessage("Pass profile written to " + prefix + ".txt and " + prefix + ".json", Severity.INFO);
+      }
+      catch (IOException ex) {
+        DecompilerContext.getLogger().writeMessage("Cannot write pass profile " + prefix, ex);
+      }
+    }
   }
 
   public void clearContext() {
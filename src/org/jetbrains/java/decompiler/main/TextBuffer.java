@@ -30,6 +30,14 @@ public class TextBuffer {
   private final StringBuilder myStringBuilder;
   private Map<Integer, Integer> myLineToOffsetMapping = null;
 
+  // text prepended to myStringBuilder and not merged into it yet, the last prepended string comes first
+  private List<String> myPrefixes = null;
+  private int myPrefixLength = 0;
+
+  // ascending offsets of the line separators in myStringBuilder
+  private int[] mySeparators = new int[8];
+  private int mySeparatorCount = 0;
+
   public TextBuffer() {
     myStringBuilder = new StringBuilder();
   }
@@ -40,26 +48,32 @@ public class TextBuffer {
 
   public TextBuffer(String text) {
     myStringBuilder = new StringBuilder(text);
+    indexSeparators(0, myStringBuilder.length());
   }
 
   public void setCurrentLine(int line) {
-    setLineMapping(line, myStringBuilder.length()+1);
+    setLineMapping(line, length()+1);
   }
 
   public void setLineMapping(int line, int offset) {
     if (line >= 0) {
+      mergePrefixes();
       checkMapCreated();
       myLineToOffsetMapping.put(line, offset);
     }
   }
 
   public TextBuffer append(String str) {
+    int from = myStringBuilder.length() - myLineSeparator.length() + 1;
     myStringBuilder.append(str);
+    indexSeparators(from, myStringBuilder.length());
     return this;
   }
 
   public TextBuffer append(char ch) {
+    int from = myStringBuilder.length() - myLineSeparator.length() + 1;
     myStringBuilder.append(ch);
+    indexSeparators(from, myStringBuilder.length());
     return this;
   }
 
@@ -69,6 +83,7 @@ public class TextBuffer {
   }
 
   public TextBuffer appendLineSeparator() {
+    addSeparator(myStringBuilder.length());
     myStringBuilder.append(myLineSeparator);
     return this;
   }
@@ -81,7 +96,11 @@ public class TextBuffer {
   }
 
   public TextBuffer prepend(String s) {
-    insert(0, s);
+    if (myPrefixes == null) {
+      myPrefixes = new ArrayList<String>();
+    }
+    myPrefixes.add(s);
+    myPrefixLength += s.length();
     return this;
   }
 
@@ -92,6 +111,15 @@ public class TextBuffer {
   }
 
   public boolean containsOnlyWhitespaces() {
+    if (myPrefixes != null) {
+      for (String prefix : myPrefixes) {
+        for (int i = 0; i < prefix.length(); i++) {
+          if (prefix.charAt(i) != ' ') {
+            return false;
+          }
+        }
+      }
+    }
     for (int i = 0; i < myStringBuilder.length(); i++) {
       if (myStringBuilder.charAt(i) != ' ') {
         return false;
@@ -102,6 +130,7 @@ public class TextBuffer {
 
   @Override
   public String toString() {
+    mergePrefixes();
     String original = myStringBuilder.toString();
     if (myLineToOffsetMapping == null || myLineToOffsetMapping.isEmpty()) {
       if (myLineMapping != null) {
@@ -111,7 +140,7 @@ public class TextBuffer {
     }
     else {
       StringBuilder res = new StringBuilder();
-      String[] srcLines = original.split(myLineSeparator);
+      String[] srcLines = splitLines(original);
       int currentLineStartOffset = 0;
       int currentLine = 0;
       int previousMarkLine = 0;
@@ -143,11 +172,38 @@ public class TextBuffer {
     }
   }
 
+  // same as text.split(myLineSeparator), but uses the separator index instead of a regular expression
+  private String[] splitLines(String text) {
+    if (mySeparatorCount == 0) {
+      return new String[]{text};
+    }
+
+    int length = myLineSeparator.length();
+    int count = mySeparatorCount + 1;
+    while (count > 0 && getLineStart(count - 1) == getLineEnd(count - 1, text)) {
+      count--; // trailing empty lines are dropped
+    }
+
+    String[] lines = new String[count];
+    for (int i = 0; i < count; i++) {
+      lines[i] = text.substring(getLineStart(i), getLineEnd(i, text));
+    }
+    return lines;
+  }
+
+  private int getLineStart(int line) {
+    return line == 0 ? 0 : mySeparators[line - 1] + myLineSeparator.length();
+  }
+
+  private int getLineEnd(int line, String text) {
+    return line < mySeparatorCount ? mySeparators[line] : text.length();
+  }
+
   private String addOriginalLineNumbers() {
     StringBuilder sb = new StringBuilder();
     int lineStart = 0, lineEnd;
     int count = 0, length = myLineSeparator.length();
-    while ((lineEnd = myStringBuilder.indexOf(myLineSeparator, lineStart)) > 0) {
+    for (int i = 0; i < mySeparatorCount && (lineEnd = mySeparators[i]) > 0; i++) {
       ++count;
       sb.append(myStringBuilder.substring(lineStart, lineEnd));
       Set<Integer> integers = myLineMapping.get(count);
@@ -189,21 +245,35 @@ public class TextBuffer {
   }
 
   public int length() {
-    return myStringBuilder.length();
+    return myPrefixLength + myStringBuilder.length();
   }
 
   public String substring(int start) {
+    mergePrefixes();
     return myStringBuilder.substring(start);
   }
 
   public TextBuffer setStart(int position) {
+    mergePrefixes();
     myStringBuilder.delete(0, position);
     shiftMapping(0, -position);
+
+    int count = 0;
+    for (int i = 0; i < mySeparatorCount; i++) {
+      if (mySeparators[i] >= position) {
+        mySeparators[count++] = mySeparators[i] - position;
+      }
+    }
+    mySeparatorCount = count;
     return this;
   }
 
   public void setLength(int position) {
+    mergePrefixes();
     myStringBuilder.setLength(position);
+    while (mySeparatorCount > 0 && mySeparators[mySeparatorCount - 1] + myLineSeparator.length() > position) {
+      mySeparatorCount--;
+    }
     if (myLineToOffsetMapping != null) {
       HashMap<Integer, Integer> newMap = new HashMap<Integer, Integer>();
       for (Map.Entry<Integer, Integer> entry : myLineToOffsetMapping.entrySet()) {
@@ -216,16 +286,81 @@ public class TextBuffer {
   }
 
   public TextBuffer append(TextBuffer buffer) {
+    int from = myStringBuilder.length() - myLineSeparator.length() + 1;
+    if (buffer.myPrefixes != null) {
+      for (int i = buffer.myPrefixes.size() - 1; i >= 0; i--) {
+        myStringBuilder.append(buffer.myPrefixes.get(i));
+      }
+    }
+
+    int start = myStringBuilder.length();
     if (buffer.myLineToOffsetMapping != null && !buffer.myLineToOffsetMapping.isEmpty()) {
       checkMapCreated();
       for (Map.Entry<Integer, Integer> entry : buffer.myLineToOffsetMapping.entrySet()) {
-        myLineToOffsetMapping.put(entry.getKey(), entry.getValue() + myStringBuilder.length());
+        myLineToOffsetMapping.put(entry.getKey(), entry.getValue() + start);
       }
     }
     myStringBuilder.append(buffer.myStringBuilder);
+
+    // separators in the prepended text of the buffer or across the joints, then the already known ones
+    indexSeparators(from, start);
+    for (int i = 0; i < buffer.mySeparatorCount; i++) {
+      addSeparator(buffer.mySeparators[i] + start);
+    }
     return this;
   }
 
+  // moves the prepended text into the string builder
+  private void mergePrefixes() {
+    if (myPrefixes == null) {
+      return;
+    }
+
+    StringBuilder prefix = new StringBuilder(myPrefixLength);
+    for (int i = myPrefixes.size() - 1; i >= 0; i--) {
+      prefix.append(myPrefixes.get(i));
+    }
+    myStringBuilder.insert(0, prefix);
+    shiftMapping(0, myPrefixLength);
+
+    int[] separators = mySeparators;
+    int count = mySeparatorCount;
+    mySeparators = new int[Math.max(8, count * 2)];
+    mySeparatorCount = 0;
+    indexSeparators(0, myPrefixLength);
+    for (int i = 0; i < count; i++) {
+      addSeparator(separators[i] + myPrefixLength);
+    }
+
+    myPrefixes = null;
+    myPrefixLength = 0;
+  }
+
+  // adds line separators starting within [from, to) of the string builder
+  private void indexSeparators(int from, int to) {
+    String separator = myLineSeparator;
+    int length = separator.length();
+    int last = Math.min(to, myStringBuilder.length() - length + 1);
+
+    for (int p = Math.max(from, 0); p < last; p++) {
+      int i = 0;
+      while (i < length && myStringBuilder.charAt(p + i) == separator.charAt(i)) {
+        i++;
+      }
+      if (i == length) {
+        addSeparator(p);
+        p += length - 1;
+      }
+    }
+  }
+
+  private void addSeparator(int offset) {
+    if (mySeparatorCount == mySeparators.length) {
+      mySeparators = Arrays.copyOf(mySeparators, mySeparatorCount * 2);
+    }
+    mySeparators[mySeparatorCount++] = offset;
+  }
+
   private void shiftMapping(int startOffset, int shiftOffset) {
     if (myLineToOffsetMapping != null) {
       HashMap<Integer, Integer> newMap = new HashMap<Integer, Integer>();
@@ -249,8 +384,16 @@ public class TextBuffer {
   }
 
   public TextBuffer insert(int offset, String s) {
+    if (offset == 0) {
+      return prepend(s);
+    }
+
+    mergePrefixes();
     myStringBuilder.insert(offset, s);
     shiftMapping(offset, s.length());
+
+    mySeparatorCount = 0;
+    indexSeparators(0, myStringBuilder.length());
     return this;
   }
 
@@ -258,11 +401,21 @@ public class TextBuffer {
     return countLines(0);
   }
 
+  // same as count(myLineSeparator, from), answered from the separator index
   public int countLines(int from) {
-    return count(myLineSeparator, from);
+    mergePrefixes();
+    int index = Arrays.binarySearch(mySeparators, 0, mySeparatorCount, from);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    if (index < mySeparatorCount && mySeparators[index] == 0) {
+      return 0; // count() stops at a match at offset 0
+    }
+    return mySeparatorCount - index;
   }
 
   public int count(String substring, int from) {
+    mergePrefixes();
     int count = 0, length = substring.length(), p = from;
     while ((p = myStringBuilder.indexOf(substring, p)) > 0) {
       ++count;
@@ -301,7 +454,9 @@ public class TextBuffer {
     return res;
   }
 
+  // the returned builder must not be modified
   public StringBuilder getOriginalText() {
+    mergePrefixes();
     return myStringBuilder;
   }
 
@@ -18,59 +18,80 @@ package org.jetbrains.java.decompiler.main.collectors;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.TextBuffer;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
 
 public class BytecodeSourceMapper {
 
+  // binary mapping format, see writeBinaryMapping()
+  public static final int BINARY_MAPPING_MAGIC = 0x46464D50; // "FFMP"
+  public static final int BINARY_MAPPING_VERSION = 1;
+
+  private static final int[] NO_PAIRS = new int[0];
+
   private int offset_total;
 
-  // class, method, bytecode offset, source line
-  private final Map<String, Map<String, Map<Integer, Integer>>> mapping = new LinkedHashMap<String, Map<String, Map<Integer, Integer>>>();
+  // class, method, (bytecode offset, source line) pairs, the first line added for an offset is kept
+  private final Map<String, Map<String, PairBuffer>> mapping = new LinkedHashMap<String, Map<String, PairBuffer>>();
 
-  // original line to decompiled line
-  private final Map<Integer, Integer> linesMapping = new HashMap<Integer, Integer>();
-  private final Set<Integer> unmappedLines = new TreeSet<Integer>();
+  // (original line, decompiled line) pairs, the last decompiled line added for an original line is kept
+  private final PairBuffer linesMapping = new PairBuffer(true);
+
+  // original lines, the values are unused
+  private PairBuffer unmappedLines = new PairBuffer(false);
 
   public void addMapping(String className, String methodName, int bytecodeOffset, int sourceLine) {
-    Map<String, Map<Integer, Integer>> class_mapping = mapping.get(className);
-    if (class_mapping == null) {
-      mapping.put(className, class_mapping = new LinkedHashMap<String, Map<Integer, Integer>>()); // need to preserve order
+    getMethodMapping(className, methodName).add(bytecodeOffset, sourceLine); // don't overwrite
+  }
+
+  public void addTracer(String className, String methodName, BytecodeMappingTracer tracer) {
+    Map<Integer, Integer> offsets = tracer.getMapping();
+    if (!offsets.isEmpty()) {
+      PairBuffer method_mapping = getMethodMapping(className, methodName);
+      for (Entry<Integer, Integer> entry : offsets.entrySet()) {
+        method_mapping.add(entry.getKey(), entry.getValue());
+      }
     }
 
-    Map<Integer, Integer> method_mapping = class_mapping.get(methodName);
-    if (method_mapping == null) {
-      class_mapping.put(methodName, method_mapping = new HashMap<Integer, Integer>());
+    for (Entry<Integer, Integer> entry : tracer.getOriginalLinesMapping().entrySet()) {
+      linesMapping.add(entry.getKey(), entry.getValue());
     }
 
-    // don't overwrite
-    if (!method_mapping.containsKey(bytecodeOffset)) {
-      method_mapping.put(bytecodeOffset, sourceLine);
+    for (Integer line : tracer.getUnmappedLines()) {
+      unmappedLines.add(line, 0);
     }
   }
 
-  public void addTracer(String className, String methodName, BytecodeMappingTracer tracer) {
-    for (Entry<Integer, Integer> entry : tracer.getMapping().entrySet()) {
-      addMapping(className, methodName, entry.getKey(), entry.getValue());
+  private PairBuffer getMethodMapping(String className, String methodName) {
+    Map<String, PairBuffer> class_mapping = mapping.get(className);
+    if (class_mapping == null) {
+      mapping.put(className, class_mapping = new LinkedHashMap<String, PairBuffer>()); // need to preserve order
+    }
+    PairBuffer method_mapping = class_mapping.get(methodName);
+    if (method_mapping == null) {
+      class_mapping.put(methodName, method_mapping = new PairBuffer(false));
     }
-    linesMapping.putAll(tracer.getOriginalLinesMapping());
-    unmappedLines.addAll(tracer.getUnmappedLines());
+    return method_mapping;
   }
 
   public void dumpMapping(TextBuffer buffer, boolean offsetsToHex) {
-    if (mapping.isEmpty() && linesMapping.isEmpty()) {
+    int[] linesMapping = this.linesMapping.getSorted();
+    if (mapping.isEmpty() && linesMapping.length == 0) {
       return;
     }
 
     String lineSeparator = DecompilerContext.getNewLineSeparator();
 
-    for (Entry<String, Map<String, Map<Integer, Integer>>> class_entry : mapping.entrySet()) {
-      Map<String, Map<Integer, Integer>> class_mapping = class_entry.getValue();
+    for (Entry<String, Map<String, PairBuffer>> class_entry : mapping.entrySet()) {
+      Map<String, PairBuffer> class_mapping = class_entry.getValue();
       buffer.append("class '" + class_entry.getKey() + "' {" + lineSeparator);
 
       boolean is_first_method = true;
-      for (Entry<String, Map<Integer, Integer>> method_entry : class_mapping.entrySet()) {
-        Map<Integer, Integer> method_mapping = method_entry.getValue();
+      for (Entry<String, PairBuffer> method_entry : class_mapping.entrySet()) {
+        int[] pairs = method_entry.getValue().getSorted();
 
         if (!is_first_method) {
           buffer.appendLineSeparator();
@@ -78,13 +99,10 @@ public class BytecodeSourceMapper {
 
         buffer.appendIndent(1).append("method '" + method_entry.getKey() + "' {" + lineSeparator);
 
-        List<Integer> lstBytecodeOffsets = new ArrayList<Integer>(method_mapping.keySet());
-        Collections.sort(lstBytecodeOffsets);
-
-        for (Integer offset : lstBytecodeOffsets) {
-          Integer line = method_mapping.get(offset);
+        for (int i = 0; i < pairs.length; i += 2) {
+          int offset = pairs[i], line = pairs[i + 1];
 
-          String strOffset = offsetsToHex ? Integer.toHexString(offset) : line.toString();
+          String strOffset = offsetsToHex ? Integer.toHexString(offset) : String.valueOf(line);
           buffer.appendIndent(2).append(strOffset).appendIndent(2).append((line + offset_total) + lineSeparator);
         }
         buffer.appendIndent(1).append("}").appendLineSeparator();
@@ -97,21 +115,82 @@ public class BytecodeSourceMapper {
 
     // lines mapping
     buffer.append("Lines mapping:").appendLineSeparator();
-    Map<Integer, Integer> sorted = new TreeMap<Integer, Integer>(linesMapping);
-    for (Entry<Integer, Integer> entry : sorted.entrySet()) {
-      buffer.append(entry.getKey()).append(" <-> ").append(entry.getValue() + offset_total + 1).appendLineSeparator();
+    for (int i = 0; i < linesMapping.length; i += 2) {
+      buffer.append(linesMapping[i]).append(" <-> ").append(linesMapping[i + 1] + offset_total + 1).appendLineSeparator();
     }
 
-    if (!unmappedLines.isEmpty()) {
+    int[] unmappedLines = this.unmappedLines.getSorted();
+    if (unmappedLines.length > 0) {
       buffer.append("Not mapped:").appendLineSeparator();
-      for (Integer line : unmappedLines) {
-        if (!linesMapping.containsKey(line)) {
-          buffer.append(line).appendLineSeparator();
+      for (int i = 0; i < unmappedLines.length; i += 2) {
+        if (findKey(linesMapping, unmappedLines[i]) < 0) {
+          buffer.append(unmappedLines[i]).appendLineSeparator();
         }
       }
     }
   }
 
+  /**
+   * Writes the mapping in a compact big-endian binary form meant to be read without parsing text:
+   * magic, version, class count, then per class its name, method count and per method its name,
+   * pair count and (bytecode offset, decompiled line) pairs sorted by offset; then the count of and
+   * (original line, decompiled line) pairs sorted by original line and finally the count of and the
+   * sorted original lines without a mapping. Strings are written as modified UTF-8, lines are 1-based.
+   */
+  public void writeBinaryMapping(DataOutputStream out) throws IOException {
+    out.writeInt(BINARY_MAPPING_MAGIC);
+    out.writeShort(BINARY_MAPPING_VERSION);
+
+    out.writeInt(mapping.size());
+    for (Entry<String, Map<String, PairBuffer>> class_entry : mapping.entrySet()) {
+      out.writeUTF(class_entry.getKey());
+      out.writeInt(class_entry.getValue().size());
+      for (Entry<String, PairBuffer> method_entry : class_entry.getValue().entrySet()) {
+        int[] pairs = method_entry.getValue().getSorted();
+        out.writeUTF(method_entry.getKey());
+        out.writeInt(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+          out.writeInt(pairs[i]);
+          out.writeInt(pairs[i + 1] + offset_total + 1);
+        }
+      }
+    }
+
+    int[] linesMapping = this.linesMapping.getSorted();
+    out.writeInt(linesMapping.length / 2);
+    for (int i = 0; i < linesMapping.length; i += 2) {
+      out.writeInt(linesMapping[i]);
+      out.writeInt(linesMapping[i + 1] + offset_total + 1);
+    }
+
+    int[] unmappedLines = this.unmappedLines.getSorted();
+    int count = 0;
+    for (int i = 0; i < unmappedLines.length; i += 2) {
+      if (findKey(linesMapping, unmappedLines[i]) < 0) {
+        count++;
+      }
+    }
+    out.writeInt(count);
+    for (int i = 0; i < unmappedLines.length; i += 2) {
+      if (findKey(linesMapping, unmappedLines[i]) < 0) {
+        out.writeInt(unmappedLines[i]);
+      }
+    }
+  }
+
+  public byte[] getBinaryMapping() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      DataOutputStream out = new DataOutputStream(bytes);
+      writeBinaryMapping(out);
+      out.flush();
+    }
+    catch (IOException ex) {
+      throw new RuntimeException(ex); // not thrown by in-memory streams
+    }
+    return bytes.toByteArray();
+  }
+
   public int getTotalOffset() {
     return offset_total;
   }
@@ -128,14 +207,104 @@ public class BytecodeSourceMapper {
    * Original to decompiled line mapping.
    */
   public int[] getOriginalLinesMapping() {
-    int[] res = new int[linesMapping.size() * 2];
-    int i = 0;
-    for (Entry<Integer, Integer> entry : linesMapping.entrySet()) {
-      res[i] = entry.getKey();
-      unmappedLines.remove(entry.getKey());
-      res[i + 1] = entry.getValue() + offset_total + 1; // make it 1 based
-      i += 2;
+    int[] linesMapping = this.linesMapping.getSorted();
+    int[] res = new int[linesMapping.length];
+    for (int i = 0; i < linesMapping.length; i += 2) {
+      res[i] = linesMapping[i];
+      res[i + 1] = linesMapping[i + 1] + offset_total + 1; // make it 1 based
+    }
+
+    int[] unmappedLines = this.unmappedLines.getSorted();
+    PairBuffer remaining = new PairBuffer(false);
+    for (int i = 0; i < unmappedLines.length; i += 2) {
+      if (findKey(linesMapping, unmappedLines[i]) < 0) {
+        remaining.add(unmappedLines[i], 0);
+      }
     }
+    this.unmappedLines = remaining;
+
     return res;
   }
+
+  // index of the pair with the given key, negative if there is none
+  private static int findKey(int[] pairs, int key) {
+    int low = 0, high = pairs.length / 2 - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midKey = pairs[2 * mid];
+      if (midKey < key) {
+        low = mid + 1;
+      }
+      else if (midKey > key) {
+        high = mid - 1;
+      }
+      else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * (key, value) pairs collected in any order and sorted once they are read. Of the pairs with equal keys
+   * either the first or the last one added is kept.
+   */
+  private static class PairBuffer {
+    private final boolean keepLast;
+    private int[] pairs = NO_PAIRS;
+    private int length;
+    private boolean sorted = true; // sorted by key without duplicates
+
+    public PairBuffer(boolean keepLast) {
+      this.keepLast = keepLast;
+    }
+
+    public void add(int key, int value) {
+      if (length == pairs.length) {
+        pairs = Arrays.copyOf(pairs, Math.max(8, length * 2));
+      }
+      if (length > 0 && pairs[length - 2] >= key) {
+        sorted = false;
+      }
+      pairs[length++] = key;
+      pairs[length++] = value;
+    }
+
+    // the pairs sorted by key, the array must not be modified
+    public int[] getSorted() {
+      if (!sorted) {
+        // stable sort: the key in the high half, the index of the pair in the low one
+        int count = length / 2;
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+          order[i] = ((long)pairs[2 * i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] res = new int[length];
+        int k = 0;
+        for (long entry : order) {
+          int i = (int)entry;
+          if (k > 0 && res[k - 2] == pairs[2 * i]) {
+            if (keepLast) {
+              res[k - 1] = pairs[2 * i + 1];
+            }
+          }
+          else {
+            res[k++] = pairs[2 * i];
+            res[k++] = pairs[2 * i + 1];
+          }
+        }
+
+        pairs = res;
+        length = k;
+        sorted = true;
+      }
+
+      if (length < pairs.length) {
+        pairs = Arrays.copyOf(pairs, length);
+      }
+      return pairs;
+    }
+  }
 }
@@ -19,7 +19,6 @@ import org.jetbrains.java.decompiler.main.ClassesProcessor;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.TextBuffer;
-import org.jetbrains.java.decompiler.struct.StructContext;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -32,6 +31,7 @@ public class ImportCollector {
 
   private final Map<String, String> mapSimpleNames = new HashMap<String, String>();
   private final Set<String> setNotImportedNames = new HashSet<String>();
+  private final Map<String, String> mapExternalShortNames = new HashMap<String, String>();
   private String currentPackageSlash = "";
   private String currentPackagePoint = "";
 
@@ -52,10 +52,18 @@ public class ImportCollector {
 
   public String getShortName(String fullname, boolean imported) {
 
+    // the result for a type which is not decompiled does not change once it has been registered
+    String shortName = mapExternalShortNames.get(fullname);
+    if (shortName != null) {
+      return shortName;
+    }
+
     ClassesProcessor clproc = DecompilerContext.getClassProcessor();
+    ShortNameTable table = clproc.getShortNameTable();
     ClassNode node = clproc.getMapRootClasses().get(fullname.replace('.', '/'));
 
     String retname = null;
+    String[] name;
 
     if (node != null && node.classStruct.isOwn()) {
 
@@ -67,50 +75,48 @@ public class ImportCollector {
       }
 
       if (node.type == ClassNode.CLASS_ROOT) {
-        fullname = node.classStruct.qualifiedName;
-        fullname = fullname.replace('/', '.');
+        name = table.getRootName(node.classStruct.qualifiedName);
       }
       else {
         return retname;
       }
     }
     else {
-      fullname = fullname.replace('$', '.');
+      name = table.getExternalName(fullname);
     }
 
-    String nshort = fullname;
-    String npackage = "";
-
-    int lastpoint = fullname.lastIndexOf(".");
-
-    if (lastpoint >= 0) {
-      nshort = fullname.substring(lastpoint + 1);
-      npackage = fullname.substring(0, lastpoint);
-    }
-
-    StructContext context = DecompilerContext.getStructContext();
+    String nshort = name[1];
+    String npackage = name[2];
 
     // check for another class which could 'shadow' this one. Two cases:
     // 1) class with the same short name in the current package
     // 2) class with the same short name in the default package
-    boolean existsDefaultClass = (context.getClass(currentPackageSlash + nshort) != null
+    boolean existsDefaultClass = (table.containsClass(currentPackageSlash, nshort)
                                   && !npackage.equals(currentPackagePoint)) // current package
-                                 || (context.getClass(nshort) != null 
+                                 || (table.containsClass("", nshort)
                                   && !currentPackagePoint.isEmpty());  // default package
 
+    String result;
     if (existsDefaultClass ||
         (mapSimpleNames.containsKey(nshort) && !npackage.equals(mapSimpleNames.get(nshort)))) {
-      return fullname;
+      result = name[0];
     }
-    else if (!mapSimpleNames.containsKey(nshort)) {
-      mapSimpleNames.put(nshort, npackage);
+    else {
+      if (!mapSimpleNames.containsKey(nshort)) {
+        mapSimpleNames.put(nshort, npackage);
 
-      if (!imported) {
-        setNotImportedNames.add(nshort);
+        if (!imported) {
+          setNotImportedNames.add(nshort);
+        }
       }
+      result = retname == null ? nshort : retname;
+    }
+
+    if (retname == null) {
+      mapExternalShortNames.put(fullname, result);
     }
 
-    return retname == null ? nshort : retname;
+    return result;
   }
 
   public int writeImports(TextBuffer buffer) {
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.collectors;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Wall time, allocated bytes and invocation counts of the method decompilation passes, per method and for the whole
+ * run. Passes are bracketed by {@link #begin(String)} and {@link #end()}; a disabled profiler ignores all calls.
+ * Allocation is only measured on JVMs which support per-thread allocation counters, it is reported as -1 otherwise.
+ */
+public class PassProfiler {
+
+  private static final int REPORTED_METHODS = 50;
+
+  private final boolean enabled;
+  private final Map<String, Stats> passes = new LinkedHashMap<String, Stats>();
+  private final List<MethodProfile> methods = new ArrayList<MethodProfile>();
+
+  private MethodProfile method;
+  private String pass;
+  private long passStart;
+  private long passAllocated;
+
+  public PassProfiler(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public synchronized void startMethod(String name) {
+    if (enabled) {
+      method = new MethodProfile(name);
+      method.start = System.nanoTime();
+      method.startAllocated = getAllocatedBytes();
+      pass = null;
+    }
+  }
+
+  public synchronized void endMethod() {
+    if (enabled && method != null) {
+      method.stats.add(System.nanoTime() - method.start, delta(method.startAllocated, getAllocatedBytes()));
+      methods.add(method);
+      method = null;
+      pass = null;
+    }
+  }
+
+  public synchronized void begin(String name) {
+    if (enabled) {
+      pass = name;
+      passAllocated = getAllocatedBytes();
+      passStart = System.nanoTime();
+    }
+  }
+
+  public synchronized void end() {
+    if (enabled && pass != null) {
+      long time = System.nanoTime() - passStart;
+      long allocated = delta(passAllocated, getAllocatedBytes());
+
+      getStats(passes, pass).add(time, allocated);
+      if (method != null) {
+        getStats(method.passes, pass).add(time, allocated);
+      }
+      pass = null;
+    }
+  }
+
+  public synchronized void writeReport(String prefix) throws IOException {
+    Writer text = new OutputStreamWriter(new FileOutputStream(prefix + ".txt"), "UTF-8");
+    try {
+      writeText(text);
+    }
+    finally {
+      text.close();
+    }
+
+    Writer json = new OutputStreamWriter(new FileOutputStream(prefix + ".json"), "UTF-8");
+    try {
+      writeJson(json);
+    }
+    finally {
+      json.close();
+    }
+  }
+
+  private void writeText(Writer out) throws IOException {
+    Stats total = getTotal();
+
+    out.write("Methods: " + methods.size() + ", time: " + millis(total.time) + " ms, allocated: " + megabytes(total.allocated) + " MB\n\n");
+    writeTextTable(out, sort(passes), total.time, "");
+
+    List<MethodProfile> sorted = sortMethods();
+    out.write("\nSlowest methods:\n");
+    for (int i = 0; i < sorted.size() && i < REPORTED_METHODS; i++) {
+      MethodProfile profile = sorted.get(i);
+      out.write("\n" + profile.name + ": " + millis(profile.stats.time) + " ms, allocated: " + megabytes(profile.stats.allocated) + " MB\n");
+      writeTextTable(out, sort(profile.passes), profile.stats.time, "  ");
+    }
+  }
+
+  private static void writeTextTable(Writer out, List<Map.Entry<String, Stats>> entries, long totalTime, String indent) throws IOException {
+    out.write(String.format("%s%-28s %10s %12s %7s %14s\n", indent, "pass", "calls", "time ms", "%", "allocated MB"));
+    for (Map.Entry<String, Stats> entry : entries) {
+      Stats stats = entry.getValue();
+      double percent = totalTime == 0 ? 0 : stats.time * 100.0 / totalTime;
+      out.write(String.format(Locale.US, "%s%-28s %10d %12s %6.1f%% %14s\n", indent, entry.getKey(), stats.calls, millis(stats.time),
+                              percent, megabytes(stats.allocated)));
+    }
+  }
+
+  private void writeJson(Writer out) throws IOException {
+    Stats total = getTotal();
+
+    out.write("{\"methods\":" + methods.size() + ",\"time\":" + total.time + ",\"allocated\":" + total.allocated + ",\"passes\":");
+    writeJsonPasses(out, sort(passes));
+    out.write(",\"methodProfiles\":[");
+
+    boolean first = true;
+    for (MethodProfile profile : sortMethods()) {
+      if (!first) {
+        out.write(',');
+      }
+      first = false;
+
+      out.write("\n{\"name\":\"" + escape(profile.name) + "\",\"time\":" + profile.stats.time + ",\"allocated\":" + profile.stats.allocated + ",\"passes\":");
+      writeJsonPasses(out, sort(profile.passes));
+      out.write('}');
+    }
+
+    out.write("]}\n");
+  }
+
+  private static void writeJsonPasses(Writer out, List<Map.Entry<String, Stats>> entries) throws IOException {
+    out.write('[');
+    for (int i = 0; i < entries.size(); i++) {
+      Map.Entry<String, Stats> entry = entries.get(i);
+      Stats stats = entry.getValue();
+      if (i > 0) {
+        out.write(',');
+      }
+      out.write("{\"name\":\"" + escape(entry.getKey()) + "\",\"calls\":" + stats.calls + ",\"time\":" + stats.time + ",\"allocated\":" + stats.allocated + "}");
+    }
+    out.write(']');
+  }
+
+  private Stats getTotal() {
+    Stats total = new Stats();
+    for (MethodProfile profile : methods) {
+      total.add(profile.stats.time, profile.stats.allocated);
+    }
+    return total;
+  }
+
+  private List<MethodProfile> sortMethods() {
+    List<MethodProfile> sorted = new ArrayList<MethodProfile>(methods);
+    Collections.sort(sorted, new Comparator<MethodProfile>() {
+      @Override
+      public int compare(MethodProfile o1, MethodProfile o2) {
+        return compareLongs(o2.stats.time, o1.stats.time);
+      }
+    });
+    return sorted;
+  }
+
+  private static List<Map.Entry<String, Stats>> sort(Map<String, Stats> map) {
+    List<Map.Entry<String, Stats>> sorted = new ArrayList<Map.Entry<String, Stats>>(map.entrySet());
+    Collections.sort(sorted, new Comparator<Map.Entry<String, Stats>>() {
+      @Override
+      public int compare(Map.Entry<String, Stats> o1, Map.Entry<String, Stats> o2) {
+        return compareLongs(o2.getValue().time, o1.getValue().time);
+      }
+    });
+    return sorted;
+  }
+
+  private static int compareLongs(long l1, long l2) {
+    return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+  }
+
+  private static Stats getStats(Map<String, Stats> map, String name) {
+    Stats stats = map.get(name);
+    if (stats == null) {
+      map.put(name, stats = new Stats());
+    }
+    return stats;
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.US, "%.3f", nanos / 1e6);
+  }
+
+  private static String megabytes(long bytes) {
+    return bytes < 0 ? "n/a" : String.format(Locale.US, "%.3f", bytes / (1024.0 * 1024.0));
+  }
+
+  private static String escape(String str) {
+    StringBuilder buffer = new StringBuilder(str.length());
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c == '"' || c == '\\') {
+        buffer.append('\\').append(c);
+      }
+      else if (c < 0x20) {
+        buffer.append(String.format("\\u%04x", (int)c));
+      }
+      else {
+        buffer.append(c);
+      }
+    }
+    return buffer.toString();
+  }
+
+  private static long delta(long start, long end) {
+    return start < 0 || end < 0 ? -1 : end - start;
+  }
+
+  // com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long), null if the JVM doesn't provide it
+  private static final Method ALLOCATED_BYTES = findAllocatedBytesMethod();
+
+  // looked up reflectively, the extended bean is not available on every JVM
+  private static Method findAllocatedBytesMethod() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      Class<?> extended = Class.forName("com.sun.management.ThreadMXBean");
+      if (extended.isInstance(bean) &&
+          Boolean.TRUE.equals(extended.getMethod("isThreadAllocatedMemorySupported").invoke(bean)) &&
+          Boolean.TRUE.equals(extended.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean))) {
+        return extended.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    }
+    catch (Exception ignore) { }
+    catch (LinkageError ignore) { }
+    return null;
+  }
+
+  // bytes allocated by the current thread so far, -1 if not supported by the JVM
+  private static long getAllocatedBytes() {
+    if (ALLOCATED_BYTES != null) {
+      try {
+        return (Long)ALLOCATED_BYTES.invoke(ManagementFactory.getThreadMXBean(), Thread.currentThread().getId());
+      }
+      catch (Exception ignore) { }
+    }
+    return -1;
+  }
+
+  private static class Stats {
+    private int calls;
+    private long time;
+    private long allocated;
+
+    private void add(long time, long allocated) {
+      calls++;
+      this.time += time;
+      this.allocated = this.allocated < 0 || allocated < 0 ? -1 : this.allocated + allocated;
+    }
+  }
+
+  private static class MethodProfile {
+    private final String name;
+    private final Map<String, Stats> passes = new LinkedHashMap<String, Stats>();
+    private final Stats stats = new Stats();
+
+    private long start;
+    private long startAllocated;
+
+    private MethodProfile(String name) {
+      this.name = name;
+    }
+  }
+}
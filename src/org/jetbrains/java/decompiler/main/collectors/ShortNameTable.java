@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.collectors;
+
+import org.jetbrains.java.decompiler.struct.StructContext;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name tables shared by the import collectors of one decompiler run: the split of qualified type names
+ * into package and short name, and the simple names of all known classes per package.
+ */
+public class ShortNameTable {
+
+  private final StructContext context;
+
+  // {dotted full name, short name, package} of referenced type names and of top level class names
+  private final Map<String, String[]> externalNames = new ConcurrentHashMap<String, String[]>();
+  private final Map<String, String[]> rootNames = new ConcurrentHashMap<String, String[]>();
+
+  // package with trailing '/' ("" for the default one) -> simple names of its classes
+  private volatile Map<String, Set<String>> packageClasses;
+
+  public ShortNameTable(StructContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Splits a type name which is not a decompiled class; '$' is treated as a nested class separator.
+   */
+  public String[] getExternalName(String fullname) {
+    String[] name = externalNames.get(fullname);
+    if (name == null) {
+      name = split(fullname.replace('$', '.'));
+      externalNames.put(fullname, name);
+    }
+    return name;
+  }
+
+  /**
+   * Splits the slashed qualified name of a decompiled top level class.
+   */
+  public String[] getRootName(String qualifiedName) {
+    String[] name = rootNames.get(qualifiedName);
+    if (name == null) {
+      name = split(qualifiedName.replace('/', '.'));
+      rootNames.put(qualifiedName, name);
+    }
+    return name;
+  }
+
+  private static String[] split(String fullname) {
+    String nshort = fullname;
+    String npackage = "";
+
+    int lastpoint = fullname.lastIndexOf(".");
+
+    if (lastpoint >= 0) {
+      nshort = fullname.substring(lastpoint + 1);
+      npackage = fullname.substring(0, lastpoint);
+    }
+
+    return new String[]{fullname, nshort, npackage};
+  }
+
+  // same as context.getClass(packageSlash + simpleName) != null
+  public boolean containsClass(String packageSlash, String simpleName) {
+    if (simpleName.indexOf('/') >= 0) {
+      return context.getClass(packageSlash + simpleName) != null;
+    }
+    Set<String> classes = getPackageClasses().get(packageSlash);
+    return classes != null && classes.contains(simpleName);
+  }
+
+  private Map<String, Set<String>> getPackageClasses() {
+    Map<String, Set<String>> map = packageClasses;
+    if (map == null) {
+      map = new HashMap<String, Set<String>>();
+      for (String qualifiedName : context.getClasses().keySet()) {
+        int index = qualifiedName.lastIndexOf('/') + 1;
+        String packageSlash = qualifiedName.substring(0, index);
+        Set<String> set = map.get(packageSlash);
+        if (set == null) {
+          map.put(packageSlash, set = new HashSet<String>());
+        }
+        set.add(qualifiedName.substring(index));
+      }
+      packageClasses = map;
+    }
+    return map;
+  }
+}
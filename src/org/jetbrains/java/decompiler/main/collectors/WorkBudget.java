@@ -0,0 +1,52 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.collectors;
+
+/**
+ * Deterministic processing limit of a method. Heavy loops charge the budget with work units, roughly one unit
+ * per visited graph node or statement, independent of machine load and thread count.
+ */
+public class WorkBudget {
+
+  public static class ExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ExceededException(long limit) {
+      super("Work limit of " + limit + " units exceeded");
+    }
+  }
+
+  private final long limit;
+  private long used;
+
+  /**
+   * @param limit maximum number of units, 0 means no limit
+   */
+  public WorkBudget(long limit) {
+    this.limit = limit;
+  }
+
+  public void charge(int units) {
+    used += units;
+    if (limit > 0 && used > limit) {
+      throw new ExceededException(limit);
+    }
+  }
+
+  public long getUsed() {
+    return used;
+  }
+}
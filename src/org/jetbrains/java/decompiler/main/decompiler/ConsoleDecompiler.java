@@ -23,6 +23,7 @@ import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -230,16 +231,36 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
   public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
     File file = new File(getAbsolutePath(path), entryName);
     try {
-      Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF8");
+      writeFile(file, content.getBytes("UTF-8"));
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot write class file " + file, ex);
+    }
+  }
+
+  @Override
+  public void saveClassMapping(String path, String archiveName, String qualifiedName, String entryName, byte[] mapping) {
+    if (archiveName == null) {
+      File file = new File(getAbsolutePath(path), entryName);
       try {
-        out.write(content);
+        writeFile(file, mapping);
       }
-      finally {
-        out.close();
+      catch (IOException ex) {
+        DecompilerContext.getLogger().writeMessage("Cannot write mapping file " + file, ex);
       }
     }
-    catch (IOException ex) {
-      DecompilerContext.getLogger().writeMessage("Cannot write class file " + file, ex);
+    else {
+      saveEntry(path, archiveName, entryName, mapping);
+    }
+  }
+
+  private static void writeFile(File file, byte[] content) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    }
+    finally {
+      out.close();
     }
   }
 
@@ -298,6 +319,10 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+    saveEntry(path, archiveName, entryName, content == null ? null : content.getBytes(Charset.forName("UTF-8")));
+  }
+
+  private void saveEntry(String path, String archiveName, String entryName, byte[] content) {
     String file = new File(getAbsolutePath(path), archiveName).getPath();
 
     if (!checkEntry(entryName, file)) {
@@ -308,7 +333,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       ZipOutputStream out = mapArchiveStreams.get(file);
       out.putNextEntry(new ZipEntry(entryName));
       if (content != null) {
-        out.write(content.getBytes("UTF-8"));
+        out.write(content);
       }
     }
     catch (IOException ex) {
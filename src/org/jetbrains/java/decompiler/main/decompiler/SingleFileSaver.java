@@ -95,6 +95,21 @@ public class SingleFileSaver implements IResultSaver {
     }
   }
 
+  @Override
+  public void saveClassMapping(String path, String archiveName, String qualifiedName, String entryName, byte[] mapping) {
+    if (!checkEntry(entryName))
+      return;
+
+    try {
+      output.putNextEntry(new ZipEntry(entryName));
+      output.write(mapping);
+    }
+    catch (IOException ex) {
+      String message = "Cannot write entry " + entryName + " to " + target;
+      DecompilerContext.getLogger().writeMessage(message, ex);
+    }
+  }
+
   @Override
   public void closeArchive(String path, String archiveName) {
     try {
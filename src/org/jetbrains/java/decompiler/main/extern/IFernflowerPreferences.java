@@ -44,16 +44,19 @@ public interface IFernflowerPreferences {
   String IDEA_NOT_NULL_ANNOTATION = "inn";
   String LAMBDA_TO_ANONYMOUS_CLASS = "lac";
   String BYTECODE_SOURCE_MAPPING = "bsm";
+  String BYTECODE_SOURCE_MAPPING_BINARY = "bsb";
   String USE_DEBUG_LINE_NUMBERS = "udl";
   String IGNORE_INVALID_BYTECODE = "iib";
 
   String LOG_LEVEL = "log";
   String MAX_PROCESSING_METHOD = "mpm";
+  String MAX_PROCESSING_WORK = "mpw";
   String RENAME_ENTITIES = "ren";
   String USER_RENAMER_CLASS = "urc";
   String NEW_LINE_SEPARATOR = "nls";
   String INDENT_STRING = "ind";
   String BANNER = "ban";
+  String PROFILE_REPORT = "prf";
 
   String DUMP_ORIGINAL_LINES = "__dump_original_lines__";
   String UNIT_TEST_MODE = "__unit_test_mode__";
@@ -90,15 +93,18 @@ public interface IFernflowerPreferences {
     put(IDEA_NOT_NULL_ANNOTATION, "1");
     put(LAMBDA_TO_ANONYMOUS_CLASS, "0");
     put(BYTECODE_SOURCE_MAPPING, "0");
+    put(BYTECODE_SOURCE_MAPPING_BINARY, "0");
     put(USE_DEBUG_LINE_NUMBERS, "0");
     put(IGNORE_INVALID_BYTECODE, "0");
 
     put(LOG_LEVEL, IFernflowerLogger.Severity.INFO.name());
     put(MAX_PROCESSING_METHOD, "0");
+    put(MAX_PROCESSING_WORK, "0");
     put(RENAME_ENTITIES, "0");
     put(NEW_LINE_SEPARATOR, (InterpreterUtil.IS_WINDOWS ? "0" : "1"));
     put(INDENT_STRING, "   ");
     put(BANNER, "");
+    put(PROFILE_REPORT, "");
     put(UNIT_TEST_MODE, "0");
     put(DUMP_ORIGINAL_LINES, "0");
     put(INCLUDE_ENTIRE_CLASSPATH, "0");
@@ -33,4 +33,7 @@ public interface IResultSaver {
   void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content);
 
   void closeArchive(String path, String archiveName);
+
+  // binary bytecode to source mapping of a saved class, archiveName is null for folders
+  default void saveClassMapping(String path, String archiveName, String qualifiedName, String entryName, byte[] mapping) { }
 }
@@ -19,6 +19,7 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
+import org.jetbrains.java.decompiler.main.collectors.WorkBudget;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
@@ -76,59 +77,28 @@ public class ClassWrapper {
       DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD, mt);
       DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_DESCRIPTOR, MethodDescriptor.parseDescriptor(mt.getDescriptor()));
 
-      VarProcessor varProc = new VarProcessor();
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
+      VarProcessor varProc = createVarProcessor(mt);
 
       RootStatement root = null;
 
-      // if debug information present and should be used
-      if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
-        StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
-          StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
-
-        if (attr != null) {
-          varProc.setLVT(attr.getLVT());
-        }
-      }
-
       boolean isError = false;
 
       try {
         if (mt.containsCode()) {
-          if (maxSec == 0 || testMode) {
-            root = MethodProcessorRunnable.codeToJava(mt, varProc);
-          }
-          else {
-            MethodProcessorRunnable mtProc = new MethodProcessorRunnable(mt, varProc, DecompilerContext.getCurrentContext());
-
-            Thread mtThread = new Thread(mtProc, "Java decompiler");
-            long stopAt = System.currentTimeMillis() + maxSec * 1000;
+          root = processMethod(mt, varProc, false, testMode ? 0 : maxSec);
 
-            mtThread.start();
+          if (root == null) {
+            // start over with fresh method state
+            vc = new VarNamesCollector();
+            DecompilerContext.setVarNamesCollector(vc);
 
-            while (!mtProc.isFinished()) {
-              try {
-                synchronized (mtProc.lock) {
-                  mtProc.lock.wait(200);
-                }
-              }
-              catch (InterruptedException e) {
-                killThread(mtThread);
-                throw e;
-              }
+            counter = new CounterContainer();
+            DecompilerContext.setCounterContainer(counter);
 
-              if (System.currentTimeMillis() >= stopAt) {
-                String message = "Processing time limit exceeded for method " + mt.getName() + ", execution interrupted.";
-                DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
-                killThread(mtThread);
-                isError = true;
-                break;
-              }
-            }
+            varProc = createVarProcessor(mt);
 
-            if (!isError) {
-              root = mtProc.getResult();
-            }
+            root = processMethod(mt, varProc, true, testMode ? 0 : maxSec);
+            isError = root == null;
           }
         }
         else {
@@ -191,9 +161,89 @@ public class ClassWrapper {
     DecompilerContext.getLogger().endClass();
   }
 
+  private static VarProcessor createVarProcessor(StructMethod mt) {
+    VarProcessor varProc = new VarProcessor();
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
+
+    // if debug information present and should be used
+    if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
+      StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
+        StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+
+      if (attr != null) {
+        varProc.setLVT(attr.getLVT());
+      }
+    }
+
+    return varProc;
+  }
+
+  // null if the method exceeded the time or work limit
+  private static RootStatement processMethod(StructMethod mt, VarProcessor varProc, boolean degraded, int maxSec) throws Throwable {
+    String limit;
+
+    try {
+      if (maxSec == 0) {
+        return MethodProcessorRunnable.codeToJava(mt, varProc, degraded);
+      }
+
+      MethodProcessorRunnable mtProc = new MethodProcessorRunnable(mt, varProc, degraded, DecompilerContext.getCurrentContext());
+      if (runWithTimeLimit(mtProc, maxSec)) {
+        return mtProc.getResult();
+      }
+      limit = "time";
+    }
+    catch (WorkBudget.ExceededException ex) {
+      limit = "work";
+    }
+
+    if (degraded) {
+      String message = "Processing " + limit + " limit exceeded for method " + mt.getName() + ", execution interrupted.";
+      DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
+    }
+    else {
+      String message = "Processing " + limit + " limit exceeded for method " + mt.getName() + ", retrying in degraded mode.";
+      DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN);
+    }
+
+    return null;
+  }
+
+  // false if the method could not be processed within the given time and its thread was stopped
+  private static boolean runWithTimeLimit(MethodProcessorRunnable mtProc, int maxSec) throws InterruptedException {
+    Thread mtThread = new Thread(mtProc, "Java decompiler");
+    long stopAt = System.currentTimeMillis() + maxSec * 1000;
+
+    mtThread.start();
+
+    while (!mtProc.isFinished()) {
+      try {
+        synchronized (mtProc.lock) {
+          mtProc.lock.wait(200);
+        }
+      }
+      catch (InterruptedException e) {
+        killThread(mtThread);
+        throw e;
+      }
+
+      if (System.currentTimeMillis() >= stopAt) {
+        killThread(mtThread);
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   @SuppressWarnings("deprecation")
-  private static void killThread(Thread thread) {
-    thread.stop();
+  private static void killThread(Thread thread) throws InterruptedException {
+    // the thread shares the decompiler context, it must be dead before the context is used again. ThreadDeath is
+    // only raised once the thread returns from a native call and may be caught on the way, so it is repeated.
+    while (thread.isAlive()) {
+      thread.stop();
+      thread.join(1000);
+    }
   }
 
   public MethodWrapper getMethodWrapper(String name, String descriptor) {
@@ -16,8 +16,6 @@
 package org.jetbrains.java.decompiler.main.rels;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
-import org.jetbrains.java.decompiler.code.Instruction;
-import org.jetbrains.java.decompiler.code.InstructionSequence;
 import org.jetbrains.java.decompiler.main.ClassesProcessor;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
@@ -80,49 +78,36 @@ public class LambdaProcessor {
 
     Map<String, String> mapMethodsLambda = new HashMap<String, String>();
 
-    // iterate over code and find invocations of bootstrap methods. Replace them with anonymous classes.
+    // iterate over invokedynamic instructions (indexed when reading the class, methods are not expanded)
+    // and find invocations of bootstrap methods. Replace them with anonymous classes.
     for (StructMethod mt : cl.getMethods()) {
-      mt.expandData();
+      for (int constant : mt.getInvokeDynamicConstants()) {
+        LinkConstant invoke_dynamic = cl.getPool().getLinkConstant(constant);
 
-      InstructionSequence seq = mt.getInstructionSequence();
-      if (seq != null && seq.length() > 0) {
-        int len = seq.length();
+        if (lambda_methods.get(invoke_dynamic.index1)) { // lambda invocation found
 
-        for (int i = 0; i < len; ++i) {
-          Instruction instr = seq.getInstr(i);
+          List<PooledConstant> bootstrap_arguments = bootstrap.getMethodArguments(invoke_dynamic.index1);
+          MethodDescriptor md = MethodDescriptor.parseDescriptor(invoke_dynamic.descriptor);
 
-          if (instr.opcode == CodeConstants.opc_invokedynamic) {
-            LinkConstant invoke_dynamic = cl.getPool().getLinkConstant(instr.getOperand(0));
+          String lambda_class_name = md.ret.value;
+          String lambda_method_name = invoke_dynamic.elementname;
+          String lambda_method_descriptor = ((PrimitiveConstant)bootstrap_arguments.get(2)).getString(); // method type
 
-            if (lambda_methods.get(invoke_dynamic.index1)) { // lambda invocation found
+          LinkConstant content_method_handle = (LinkConstant)bootstrap_arguments.get(1);
 
-              List<PooledConstant> bootstrap_arguments = bootstrap.getMethodArguments(invoke_dynamic.index1);
-              MethodDescriptor md = MethodDescriptor.parseDescriptor(invoke_dynamic.descriptor);
+          ClassNode node_lambda = new ClassNode(content_method_handle.classname, content_method_handle.elementname,
+                                                content_method_handle.descriptor, content_method_handle.index1,
+                                                lambda_class_name, lambda_method_name, lambda_method_descriptor, cl);
+          node_lambda.simpleName = cl.qualifiedName + "##Lambda_" + invoke_dynamic.index1 + "_" + invoke_dynamic.index2;
+          node_lambda.enclosingMethod = InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor());
 
-              String lambda_class_name = md.ret.value;
-              String lambda_method_name = invoke_dynamic.elementname;
-              String lambda_method_descriptor = ((PrimitiveConstant)bootstrap_arguments.get(2)).getString(); // method type
+          node.nested.add(node_lambda);
+          node_lambda.parent = node;
 
-              LinkConstant content_method_handle = (LinkConstant)bootstrap_arguments.get(1);
-
-              ClassNode node_lambda = new ClassNode(content_method_handle.classname, content_method_handle.elementname,
-                                                    content_method_handle.descriptor, content_method_handle.index1,
-                                                    lambda_class_name, lambda_method_name, lambda_method_descriptor, cl);
-              node_lambda.simpleName = cl.qualifiedName + "##Lambda_" + invoke_dynamic.index1 + "_" + invoke_dynamic.index2;
-              node_lambda.enclosingMethod = InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor());
-
-              node.nested.add(node_lambda);
-              node_lambda.parent = node;
-
-              clProcessor.getMapRootClasses().put(node_lambda.simpleName, node_lambda);
-              mapMethodsLambda.put(node_lambda.lambdaInformation.content_method_key, node_lambda.simpleName);
-            }
-          }
+          clProcessor.getMapRootClasses().put(node_lambda.simpleName, node_lambda);
+          mapMethodsLambda.put(node_lambda.lambdaInformation.content_method_key, node_lambda.simpleName);
         }
-        Collections.sort(node.nested);
       }
-
-      mt.releaseResources();
     }
 
     Collections.sort(node.nested);
@@ -21,6 +21,8 @@ import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.PassProfiler;
+import org.jetbrains.java.decompiler.main.collectors.WorkBudget;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
@@ -54,15 +56,17 @@ public class MethodProcessorRunnable implements Runnable {
 
   private final StructMethod method;
   private final VarProcessor varProc;
+  private final boolean degraded;
   private final DecompilerContext parentContext;
 
   private volatile RootStatement root;
   private volatile Throwable error;
   private volatile boolean finished = false;
 
-  public MethodProcessorRunnable(StructMethod method, VarProcessor varProc, DecompilerContext parentContext) {
+  public MethodProcessorRunnable(StructMethod method, VarProcessor varProc, boolean degraded, DecompilerContext parentContext) {
     this.method = method;
     this.varProc = varProc;
+    this.degraded = degraded;
     this.parentContext = parentContext;
   }
 
@@ -74,7 +78,7 @@ public class MethodProcessorRunnable implements Runnable {
     root = null;
 
     try {
-      root = codeToJava(method, varProc);
+      root = codeToJava(method, varProc, degraded);
     }
     catch (ThreadDeath ex) {
       throw ex;
@@ -93,54 +97,87 @@ public class MethodProcessorRunnable implements Runnable {
   }
 
   public static RootStatement codeToJava(StructMethod mt, VarProcessor varProc) throws IOException {
-    StructClass cl = mt.getClassStruct();
+    return codeToJava(mt, varProc, false);
+  }
+
+  /**
+   * Degraded mode skips the repeated parts of the processing: finally blocks are not de-inlined, ++/-- operators
+   * are not recovered (each one found restarts the stack variable simplification), and the restructuring passes
+   * run once each, leaving out the loop elimination and extraction, if merging, single block inlining and exit
+   * condensing. The stack variable simplification itself runs until it is done, constructor invocations are only
+   * complete after it. The result is more verbose and may contain extra labels, but it is still valid code. Meant
+   * as a fallback for methods which can't be processed within the time or work limit.
+   */
+  public static RootStatement codeToJava(StructMethod mt, VarProcessor varProc, boolean degraded) throws IOException {
+    long maxWork = Long.parseLong(DecompilerContext.getProperty(IFernflowerPreferences.MAX_PROCESSING_WORK).toString());
+    DecompilerContext.setWorkBudget(new WorkBudget(maxWork));
+
+    PassProfiler profiler = DecompilerContext.getPassProfiler();
+    if (profiler.isEnabled()) {
+      profiler.startMethod(mt.getClassStruct().qualifiedName + "." + mt.getName() + mt.getDescriptor());
+    }
+    try {
+      return codeToJava(mt, varProc, degraded, profiler);
+    }
+    finally {
+      profiler.endMethod();
+    }
+  }
+
+  private static RootStatement codeToJava(final StructMethod mt, final VarProcessor varProc, final boolean degraded,
+                                         PassProfiler profiler) throws IOException {
+    final StructClass cl = mt.getClassStruct();
 
     boolean isInitializer = CodeConstants.CLINIT_NAME.equals(mt.getName()); // for now static initializer only
 
+    profiler.begin("buildGraph");
     mt.expandData();
     InstructionSequence seq = mt.getInstructionSequence();
+    boolean linear = ControlFlowGraph.isLinear(seq);
     ControlFlowGraph graph = new ControlFlowGraph(seq);
+    profiler.end();
 
-    DeadCodeHelper.removeDeadBlocks(graph);
-    graph.inlineJsr(mt);
-
-    // TODO: move to the start, before jsr inlining
-    DeadCodeHelper.connectDummyExitBlock(graph);
-
-    DeadCodeHelper.removeGotos(graph);
-
-    ExceptionDeobfuscator.removeCircularRanges(graph);
-
-    ExceptionDeobfuscator.restorePopRanges(graph);
-
-    if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
-      ExceptionDeobfuscator.removeEmptyRanges(graph);
+    if (linear) {
+      // a single basic block without exception ranges, left as it is by the graph passes below
+      DeadCodeHelper.connectDummyExitBlock(graph);
     }
-
-    if (DecompilerContext.getOption(IFernflowerPreferences.NO_EXCEPTIONS_RETURN)) {
-      // special case: single return instruction outside of a protected range
-      DeadCodeHelper.incorporateValueReturns(graph);
+    else {
+      prepareGraph(graph, mt, profiler);
     }
 
-    //		ExceptionDeobfuscator.restorePopRanges(graph);
-    ExceptionDeobfuscator.insertEmptyExceptionHandlerBlocks(graph);
-
-    DeadCodeHelper.mergeBasicBlocks(graph);
-
     DecompilerContext.getCounterContainer().setCounter(CounterContainer.VAR_COUNTER, mt.getLocalVariables());
 
     if (ExceptionDeobfuscator.hasObfuscatedExceptions(graph)) {
       DecompilerContext.getLogger().writeMessage("Heavily obfuscated exception ranges found!", IFernflowerLogger.Severity.WARN);
     }
 
+    profiler.begin("parseGraph");
     RootStatement root = DomHelper.parseGraph(graph, mt);
+    profiler.end();
+
     MethodProcessorRunnable.currentRoot = root;
     MethodProcessorRunnable.vp = varProc;
-    FinallyProcessor fProc = new FinallyProcessor(varProc);
-    while (fProc.iterateGraph(mt, root, graph)) {
-      root = DomHelper.parseGraph(graph, mt);
+
+    // no exception ranges, no finally blocks
+    if (!linear) {
+      FinallyProcessor fProc = new FinallyProcessor(varProc, !degraded);
+      while (true) {
+        profiler.begin("finally");
+        boolean changed = fProc.iterateGraph(mt, root, graph);
+        profiler.end();
+
+        if (!changed) {
+          break;
+        }
+
+        profiler.begin("parseGraph");
+        root = DomHelper.parseGraph(graph, mt);
+        profiler.end();
+      }
     }
 
+    profiler.begin("cleanUpStatements");
+
     // remove synchronized exception handler
     // not until now because of comparison between synchronized statements in the finally cycle
     DomHelper.removeSynchronizedHandler(root);
@@ -151,86 +188,201 @@ public class MethodProcessorRunnable implements Runnable {
 
     ClearStructHelper.clearStatements(root);
 
+    profiler.end();
+
+    profiler.begin("exprents");
     ExprProcessor proc = new ExprProcessor();
     proc.processStatement(root, cl);
 
     SequenceHelper.condenseSequences(root);
+    profiler.end();
 
     while (true) {
+      profiler.begin("stackVars");
       StackVarsProcessor stackProc = new StackVarsProcessor();
       stackProc.simplifyStackVars(root, mt, cl);
+      profiler.end();
 
+      profiler.begin("varVersions");
       varProc.setVarVersions(root);
+      profiler.end();
 
-      if (!new PPandMMHelper(varProc).findPPandMM(root)) {
+      // a found ++/-- starts the stack var simplification over
+      if (degraded) {
         break;
       }
-    }
 
-    while (true) {
-      LabelHelper.cleanUpEdges(root);
-
-      while (true) {
-        if (EliminateLoopsHelper.eliminateLoops(root, cl)) {
-          continue;
-        }
+      profiler.begin("ppAndMM");
+      boolean found = new PPandMMHelper(varProc).findPPandMM(root);
+      profiler.end();
 
-        if (LoopExtractHelper.extractLoops(root)) {
-          continue;
-        }
+      if (!found) {
+        break;
+      }
+    }
 
-        MergeHelper.enhanceLoops(root);
+    // a pass run costs roughly one walk over the statement tree
+    PassScheduler scheduler = new PassScheduler(profiler, DecompilerContext.getWorkBudget(), graph.getBlocks().size());
 
-        if (!IfHelper.mergeAllIfs(root)) {
-          break;
+    scheduler.add("cleanUpEdges", new PassScheduler.Pass() {
+      @Override
+      public boolean run(RootStatement root) {
+        LabelHelper.cleanUpEdges(root);
+        return false;
+      }
+    });
+
+    // loops and conditions need branches
+    if (!linear) {
+      if (!degraded) {
+        scheduler.add("eliminateLoops", new PassScheduler.Pass() {
+          @Override
+          public boolean run(RootStatement root) {
+            return EliminateLoopsHelper.eliminateLoops(root, cl);
+          }
+        }, "eliminateLoops");
+        scheduler.add("extractLoops", new PassScheduler.Pass() {
+          @Override
+          public boolean run(RootStatement root) {
+            return LoopExtractHelper.extractLoops(root);
+          }
+        }, "eliminateLoops");
+      }
+      scheduler.add("enhanceLoops", new PassScheduler.Pass() {
+        @Override
+        public boolean run(RootStatement root) {
+          MergeHelper.enhanceLoops(root);
+          return false;
         }
+      });
+      if (!degraded) {
+        scheduler.add("mergeAllIfs", new PassScheduler.Pass() {
+          @Override
+          public boolean run(RootStatement root) {
+            return IfHelper.mergeAllIfs(root);
+          }
+        }, "eliminateLoops");
       }
 
       if (DecompilerContext.getOption(IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION)) {
-        if (IdeaNotNullHelper.removeHardcodedChecks(root, mt)) {
-          SequenceHelper.condenseSequences(root);
-
-          StackVarsProcessor stackProc = new StackVarsProcessor();
-          stackProc.simplifyStackVars(root, mt, cl);
-
-          varProc.setVarVersions(root);
-        }
+        scheduler.add("removeHardcodedChecks", new PassScheduler.Pass() {
+          @Override
+          public boolean run(RootStatement root) {
+            if (IdeaNotNullHelper.removeHardcodedChecks(root, mt)) {
+              SequenceHelper.condenseSequences(root);
+
+              StackVarsProcessor stackProc = new StackVarsProcessor();
+              stackProc.simplifyStackVars(root, mt, cl);
+
+              varProc.setVarVersions(root);
+            }
+            return false;
+          }
+        });
       }
+    }
 
-      LabelHelper.identifyLabels(root);
-
-      if (InlineSingleBlockHelper.inlineSingleBlocks(root)) {
-        continue;
+    scheduler.add("identifyLabels", new PassScheduler.Pass() {
+      @Override
+      public boolean run(RootStatement root) {
+        LabelHelper.identifyLabels(root);
+        return false;
       }
+    });
+
+    // in degraded mode no pass restarts the schedule, every pass runs once
+    if (!degraded) {
+      scheduler.add("inlineSingleBlocks", new PassScheduler.Pass() {
+        @Override
+        public boolean run(RootStatement root) {
+          return InlineSingleBlockHelper.inlineSingleBlocks(root);
+        }
+      }, "cleanUpEdges");
 
       // initializer may have at most one return point, so no transformation of method exits permitted
-      if (isInitializer || !ExitHelper.condenseExits(root)) {
-        break;
+      if (!isInitializer) {
+        scheduler.add("condenseExits", new PassScheduler.Pass() {
+          @Override
+          public boolean run(RootStatement root) {
+            return ExitHelper.condenseExits(root);
+          }
+        }, "cleanUpEdges");
       }
-
-      // FIXME: !!
-      //			if(!EliminateLoopsHelper.eliminateLoops(root)) {
-      //				break;
-      //			}
     }
 
+    scheduler.run(root);
+
+    profiler.begin("removeRedundantReturns");
     ExitHelper.removeRedundantReturns(root);
+    profiler.end();
 
+    profiler.begin("secondaryFunctions");
     SecondaryFunctionsHelper.identifySecondaryFunctions(root);
+    profiler.end();
 
+    profiler.begin("cleanSynchronizedVar");
     SynchronizedHelper.cleanSynchronizedVar(root);
+    profiler.end();
 
+    profiler.begin("varDefinitions");
     varProc.setVarDefinitions(root);
+    profiler.end();
 
     // must be the last invocation, because it makes the statement structure inconsistent
     // FIXME: new edge type needed
+    profiler.begin("replaceContinueWithBreak");
     LabelHelper.replaceContinueWithBreak(root);
+    profiler.end();
 
     mt.releaseResources();
 
     return root;
   }
 
+  // dead code, subroutines and exception ranges
+  private static void prepareGraph(ControlFlowGraph graph, StructMethod mt, PassProfiler profiler) {
+    profiler.begin("removeDeadBlocks");
+    DeadCodeHelper.removeDeadBlocks(graph);
+    profiler.end();
+
+    profiler.begin("inlineJsr");
+    graph.inlineJsr(mt);
+    profiler.end();
+
+    profiler.begin("cleanUpGraph");
+
+    // TODO: move to the start, before jsr inlining
+    DeadCodeHelper.connectDummyExitBlock(graph);
+
+    DeadCodeHelper.removeGotos(graph);
+
+    profiler.end();
+
+    profiler.begin("exceptionRanges");
+
+    ExceptionDeobfuscator.removeCircularRanges(graph);
+
+    ExceptionDeobfuscator.restorePopRanges(graph);
+
+    if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
+      ExceptionDeobfuscator.removeEmptyRanges(graph);
+    }
+
+    if (DecompilerContext.getOption(IFernflowerPreferences.NO_EXCEPTIONS_RETURN)) {
+      // special case: single return instruction outside of a protected range
+      DeadCodeHelper.incorporateValueReturns(graph);
+    }
+
+    //		ExceptionDeobfuscator.restorePopRanges(graph);
+    ExceptionDeobfuscator.insertEmptyExceptionHandlerBlocks(graph);
+
+    profiler.end();
+
+    profiler.begin("mergeBasicBlocks");
+    DeadCodeHelper.mergeBasicBlocks(graph);
+    profiler.end();
+  }
+
   public RootStatement getResult() throws Throwable {
     Throwable t = error;
     if (t != null) throw t;
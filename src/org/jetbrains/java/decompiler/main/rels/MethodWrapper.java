@@ -19,7 +19,6 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.extern.IVariableNameProvider;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph;
-import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
@@ -56,8 +55,7 @@ public class MethodWrapper {
 
   public DirectGraph getOrBuildGraph() {
     if (graph == null && root != null) {
-      FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-      graph = flatthelper.buildDirectGraph(root);
+      graph = root.getDirectGraph();
     }
     return graph;
   }
@@ -251,7 +251,7 @@ public class NestedClassProcessor {
     final String parent_class_name = parent.getWrapper().getClassStruct().qualifiedName;
     final String lambda_class_name = child.simpleName;
 
-    final VarType lambda_class_type = new VarType(lambda_class_name, true);
+    final VarType lambda_class_type = VarType.fromSignature(lambda_class_name, true);
 
     // this pointer
     if (!is_static_lambda_content && DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS)) {
@@ -267,37 +267,38 @@ public class NestedClassProcessor {
     graph.iterateExprents(new DirectGraph.ExprentIterator() {
       public int processExprent(Exprent exprent) {
 
-        List<Exprent> lst = exprent.getAllExprents(true);
-        lst.add(exprent);
+        exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+          @Override
+          public int visit(Exprent expr) {
 
-        for (Exprent expr : lst) {
+            if (expr.type == Exprent.EXPRENT_NEW) {
+              NewExprent new_expr = (NewExprent)expr;
+              if (new_expr.isLambda() && lambda_class_type.equals(new_expr.getNewType())) {
 
-          if (expr.type == Exprent.EXPRENT_NEW) {
-            NewExprent new_expr = (NewExprent)expr;
-            if (new_expr.isLambda() && lambda_class_type.equals(new_expr.getNewType())) {
+                InvocationExprent inv_dynamic = new_expr.getConstructor();
 
-              InvocationExprent inv_dynamic = new_expr.getConstructor();
+                int param_index = is_static_lambda_content ? 0 : 1;
+                int varindex = is_static_lambda_content ? 0 : 1;
 
-              int param_index = is_static_lambda_content ? 0 : 1;
-              int varindex = is_static_lambda_content ? 0 : 1;
+                for (int i = 0; i < vars_count; ++i) {
 
-              for (int i = 0; i < vars_count; ++i) {
+                  Exprent param = inv_dynamic.getLstParameters().get(param_index + i);
 
-                Exprent param = inv_dynamic.getLstParameters().get(param_index + i);
+                  if (param.type == Exprent.EXPRENT_VAR) {
+                    VarVersionPair enc_varpaar = new VarVersionPair((VarExprent)param);
+                    String enc_varname = encmeth.varproc.getVarName(enc_varpaar);
 
-                if (param.type == Exprent.EXPRENT_VAR) {
-                  VarVersionPair enc_varpaar = new VarVersionPair((VarExprent)param);
-                  String enc_varname = encmeth.varproc.getVarName(enc_varpaar);
+                    //meth.varproc.setVarName(new VarVersionPair(varindex, 0), enc_varname);
+                    mapNewNames.put(new VarVersionPair(varindex, 0), enc_varname);
+                  }
 
-                  //meth.varproc.setVarName(new VarVersionPair(varindex, 0), enc_varname);
-                  mapNewNames.put(new VarVersionPair(varindex, 0), enc_varname);
+                  varindex += md_content.params[i].stackSize;
                 }
-
-                varindex += md_content.params[i].stackSize;
               }
             }
+            return Exprent.VISIT_CONTINUE;
           }
-        }
+        });
 
         return 0;
       }
@@ -433,66 +434,67 @@ public class NestedClassProcessor {
 
           graph.iterateExprents(new DirectGraph.ExprentIterator() {
             public int processExprent(Exprent exprent) {
-              List<Exprent> lst = exprent.getAllExprents(true);
-              lst.add(exprent);
+              exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+                @Override
+                public int visit(Exprent expr) {
 
-              for (Exprent expr : lst) {
+                  if (expr.type == Exprent.EXPRENT_NEW) {
+                    InvocationExprent constr = ((NewExprent)expr).getConstructor();
 
-                if (expr.type == Exprent.EXPRENT_NEW) {
-                  InvocationExprent constr = ((NewExprent)expr).getConstructor();
+                    if (constr != null && mapVarMasks.containsKey(constr.getClassname())) { // non-static inner class constructor
 
-                  if (constr != null && mapVarMasks.containsKey(constr.getClassname())) { // non-static inner class constructor
+                      String refclname = constr.getClassname();
 
-                    String refclname = constr.getClassname();
+                      ClassNode nestedClassNode = node.getClassNode(refclname);
 
-                    ClassNode nestedClassNode = node.getClassNode(refclname);
+                      if (nestedClassNode.type != ClassNode.CLASS_MEMBER) {
 
-                    if (nestedClassNode.type != ClassNode.CLASS_MEMBER) {
+                        List<VarFieldPair> mask = mapVarMasks.get(refclname).get(constr.getStringDescriptor());
 
-                      List<VarFieldPair> mask = mapVarMasks.get(refclname).get(constr.getStringDescriptor());
+                        if (!mapVarFieldPairs.containsKey(refclname)) {
+                          mapVarFieldPairs.put(refclname, new HashMap<String, List<VarFieldPair>>());
+                        }
 
-                      if (!mapVarFieldPairs.containsKey(refclname)) {
-                        mapVarFieldPairs.put(refclname, new HashMap<String, List<VarFieldPair>>());
-                      }
+                        List<VarFieldPair> lstTemp = new ArrayList<VarFieldPair>();
 
-                      List<VarFieldPair> lstTemp = new ArrayList<VarFieldPair>();
+                        for (int i = 0; i < mask.size(); i++) {
+                          Exprent param = constr.getLstParameters().get(i);
+                          VarFieldPair pair = null;
 
-                      for (int i = 0; i < mask.size(); i++) {
-                        Exprent param = constr.getLstParameters().get(i);
-                        VarFieldPair pair = null;
+                          if (param.type == Exprent.EXPRENT_VAR && mask.get(i) != null) {
+                            VarVersionPair varpaar = new VarVersionPair((VarExprent)param);
 
-                        if (param.type == Exprent.EXPRENT_VAR && mask.get(i) != null) {
-                          VarVersionPair varpaar = new VarVersionPair((VarExprent)param);
+                            // FIXME: final flags of variables are wrong! Correct the entire final functionality.
+                            //													if(meth.varproc.getVarFinal(varpaar) != VarTypeProcessor.VAR_NON_FINAL) {
+                            pair = new VarFieldPair(mask.get(i).keyfield, varpaar);
+                            //													}
+                          }
 
-                          // FIXME: final flags of variables are wrong! Correct the entire final functionality.
-                          //													if(meth.varproc.getVarFinal(varpaar) != VarTypeProcessor.VAR_NON_FINAL) {
-                          pair = new VarFieldPair(mask.get(i).keyfield, varpaar);
-                          //													}
+                          lstTemp.add(pair);
                         }
 
-                        lstTemp.add(pair);
-                      }
-
-                      List<VarFieldPair> pairmask = mapVarFieldPairs.get(refclname).get(constr.getStringDescriptor());
+                        List<VarFieldPair> pairmask = mapVarFieldPairs.get(refclname).get(constr.getStringDescriptor());
 
-                      if (pairmask == null) {
-                        pairmask = lstTemp;
-                      }
-                      else {
-                        for (int i = 0; i < pairmask.size(); i++) {
-                          if (!InterpreterUtil.equalObjects(pairmask.get(i), lstTemp.get(i))) {
-                            pairmask.set(i, null);
+                        if (pairmask == null) {
+                          pairmask = lstTemp;
+                        }
+                        else {
+                          for (int i = 0; i < pairmask.size(); i++) {
+                            if (!InterpreterUtil.equalObjects(pairmask.get(i), lstTemp.get(i))) {
+                              pairmask.set(i, null);
+                            }
                           }
                         }
-                      }
 
-                      mapVarFieldPairs.get(refclname).put(constr.getStringDescriptor(), pairmask);
-                      nestedClassNode.enclosingMethod =
-                        InterpreterUtil.makeUniqueKey(meth.methodStruct.getName(), meth.methodStruct.getDescriptor());
+                        mapVarFieldPairs.get(refclname).put(constr.getStringDescriptor(), pairmask);
+                        nestedClassNode.enclosingMethod =
+                          InterpreterUtil.makeUniqueKey(meth.methodStruct.getName(), meth.methodStruct.getDescriptor());
+                      }
                     }
                   }
+                  return Exprent.VISIT_CONTINUE;
                 }
-              }
+              });
               return 0;
             }
           });
@@ -983,7 +985,7 @@ public class NestedClassProcessor {
     RootStatement root = meth.root;
 
     HashSet<Statement> setStats = new HashSet<Statement>();
-    VarType classtype = new VarType(node.classStruct.qualifiedName, true);
+    VarType classtype = VarType.fromSignature(node.classStruct.qualifiedName, true);
 
     Statement stdef = getDefStatement(root, classtype, setStats);
     if (stdef == null) {
@@ -1118,49 +1120,45 @@ public class NestedClassProcessor {
     return retstat;
   }
 
-  private static boolean searchForClass(Exprent exprent, VarType classtype) {
-
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    String classname = classtype.value;
-
-    for (Exprent expr : lst) {
-
-      boolean res = false;
-
-      switch (expr.type) {
-        case Exprent.EXPRENT_CONST:
-          ConstExprent cexpr = (ConstExprent)expr;
-          res = (VarType.VARTYPE_CLASS.equals(cexpr.getConstType()) && classname.equals(cexpr.getValue()) ||
-                 classtype.equals(cexpr.getConstType()));
-          break;
-        case Exprent.EXPRENT_FIELD:
-          res = classname.equals(((FieldExprent)expr).getClassname());
-          break;
-        case Exprent.EXPRENT_INVOCATION:
-          res = classname.equals(((InvocationExprent)expr).getClassname());
-          break;
-        case Exprent.EXPRENT_NEW:
-          VarType newType = ((NewExprent)expr).getNewType();
-          res = newType.type == CodeConstants.TYPE_OBJECT && classname.equals(newType.value);
-          break;
-        case Exprent.EXPRENT_VAR:
-          VarExprent vexpr = (VarExprent)expr;
-          if (vexpr.isDefinition()) {
-            VarType vtype = vexpr.getVarType();
-            if (classtype.equals(vtype) || (vtype.arrayDim > 0 && classtype.value.equals(vtype.value))) {
-              res = true;
+  private static boolean searchForClass(Exprent exprent, final VarType classtype) {
+
+    final String classname = classtype.value;
+
+    return !exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+
+        boolean res = false;
+
+        switch (expr.type) {
+          case Exprent.EXPRENT_CONST:
+            ConstExprent cexpr = (ConstExprent)expr;
+            res = (VarType.VARTYPE_CLASS.equals(cexpr.getConstType()) && classname.equals(cexpr.getValue()) ||
+                   classtype.equals(cexpr.getConstType()));
+            break;
+          case Exprent.EXPRENT_FIELD:
+            res = classname.equals(((FieldExprent)expr).getClassname());
+            break;
+          case Exprent.EXPRENT_INVOCATION:
+            res = classname.equals(((InvocationExprent)expr).getClassname());
+            break;
+          case Exprent.EXPRENT_NEW:
+            VarType newType = ((NewExprent)expr).getNewType();
+            res = newType.type == CodeConstants.TYPE_OBJECT && classname.equals(newType.value);
+            break;
+          case Exprent.EXPRENT_VAR:
+            VarExprent vexpr = (VarExprent)expr;
+            if (vexpr.isDefinition()) {
+              VarType vtype = vexpr.getVarType();
+              if (classtype.equals(vtype) || (vtype.arrayDim > 0 && classtype.value.equals(vtype.value))) {
+                res = true;
+              }
             }
-          }
-      }
+        }
 
-      if (res) {
-        return true;
+        return res ? Exprent.VISIT_CANCEL : Exprent.VISIT_CONTINUE;
       }
-    }
-
-    return false;
+    });
   }
 
 
@@ -29,8 +29,8 @@ public class ConcatenationHelper {
   private static final String bufferClass = "java/lang/StringBuffer";
   private static final String stringClass = "java/lang/String";
 
-  private static final VarType builderType = new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/StringBuilder");
-  private static final VarType bufferType = new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/StringBuffer");
+  private static final VarType builderType = VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/StringBuilder");
+  private static final VarType bufferType = VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/StringBuffer");
 
 
   public static Exprent contractStringConcat(Exprent expr) {
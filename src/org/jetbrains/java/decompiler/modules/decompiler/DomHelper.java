@@ -369,6 +369,8 @@ public class DomHelper {
 
           while (true) {
 
+            DecompilerContext.getWorkBudget().charge(general.getStats().size());
+
             if (findSimpleStatements(general, mapExtPost)) {
               reducibility = 0;
             }
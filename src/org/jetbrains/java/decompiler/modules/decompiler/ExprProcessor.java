@@ -147,8 +147,8 @@ public class ExprProcessor implements CodeConstants {
 
   public void processStatement(RootStatement root, StructClass cl) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    FlattenStatementsHelper flatthelper = root.getFlattenHelper();
+    DirectGraph dgraph = flatthelper.getDirectGraph();
 
     //		try {
     //			DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr12_my.dot"));
@@ -555,7 +555,7 @@ public class ExprProcessor implements CodeConstants {
           break;
         case opc_checkcast:
         case opc_instanceof:
-          stack.push(new ConstExprent(new VarType(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), true), null, null));
+          stack.push(new ConstExprent(VarType.fromSignature(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), true), null, null));
         case opc_arraylength:
           pushEx(stack, exprlist, new FunctionExprent(mapConsts.get(instr.opcode).intValue(), stack, bytecode_offsets));
           break;
@@ -601,14 +601,14 @@ public class ExprProcessor implements CodeConstants {
         case opc_anewarray:
         case opc_multianewarray:
           int dimensions = (instr.opcode == opc_new) ? 0 : (instr.opcode == opc_anewarray) ? 1 : instr.getOperand(1);
-          VarType arrType = new VarType(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), true);
+          VarType arrType = VarType.fromSignature(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), true);
           if (instr.opcode != opc_multianewarray) {
             arrType = arrType.resizeArrayDim(arrType.arrayDim + dimensions);
           }
           pushEx(stack, exprlist, new NewExprent(arrType, stack, dimensions, bytecode_offsets));
           break;
         case opc_newarray:
-          pushEx(stack, exprlist, new NewExprent(new VarType(arr_type[instr.getOperand(0) - 4], 1), stack, 1, bytecode_offsets));
+          pushEx(stack, exprlist, new NewExprent(VarType.of(arr_type[instr.getOperand(0) - 4], 1), stack, 1, bytecode_offsets));
           break;
         case opc_dup:
           pushEx(stack, exprlist, stack.getByOffset(-1).copy());
@@ -29,7 +29,6 @@ import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.VarExprent;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectNode;
-import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAConstructorSparseEx;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.BasicBlockStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.CatchAllStatement;
@@ -50,9 +49,14 @@ public class FinallyProcessor {
   private final Map<Integer, Integer> catchallBlockIDs = new HashMap<Integer, Integer>();
 
   private final VarProcessor varprocessor;
+  private final boolean deinline;
 
-  public FinallyProcessor(VarProcessor varprocessor) {
+  /**
+   * @param deinline false to keep the inlined copies of finally blocks even if FINALLY_DEINLINE is set
+   */
+  public FinallyProcessor(VarProcessor varprocessor, boolean deinline) {
     this.varprocessor = varprocessor;
+    this.deinline = deinline;
   }
 
   public boolean iterateGraph(StructMethod mt, RootStatement root, ControlFlowGraph graph) {
@@ -91,6 +95,8 @@ public class FinallyProcessor {
         }
         else {
 
+          DecompilerContext.getWorkBudget().charge(graph.getBlocks().size());
+
           Record inf = getFinallyInformation(mt, root, fin);
 
           if (inf == null) { // inconsistent finally
@@ -98,7 +104,7 @@ public class FinallyProcessor {
           }
           else {
 
-            if (DecompilerContext.getOption(IFernflowerPreferences.FINALLY_DEINLINE) && verifyFinallyEx(graph, fin, inf)) {
+            if (deinline && DecompilerContext.getOption(IFernflowerPreferences.FINALLY_DEINLINE) && verifyFinallyEx(graph, fin, inf)) {
               finallyBlockIDs.put(handler.id, null);
             }
             else {
@@ -219,8 +225,7 @@ public class FinallyProcessor {
 
     VarVersionPair varpaar = new VarVersionPair((VarExprent)((AssignmentExprent)lstExprents.get(firstcode == 2 ? 1 : 0)).getLeft());
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    DirectGraph dgraph = root.getDirectGraph();
 
     LinkedList<DirectNode> stack = new LinkedList<DirectNode>();
     stack.add(dgraph.first);
@@ -867,32 +872,33 @@ public class FinallyProcessor {
     InstructionSequence seqPattern = pattern.getSeq();
     InstructionSequence seqSample = sample.getSeq();
 
-    if (type != 0) {
-      seqPattern = seqPattern.clone();
+    // compared range of the pattern, leading and trailing exception instructions are skipped
+    int patternStart = 0;
+    int patternEnd = seqPattern.length();
 
-      if ((type & 1) > 0) { // first
-        if (finallytype > 0) {
-          seqPattern.removeInstruction(0);
-        }
+    if ((type & 1) > 0) { // first
+      if (finallytype > 0) {
+        patternStart++;
       }
+    }
 
-      if ((type & 2) > 0) { // last
-        if (finallytype == 0 || finallytype == 2) {
-          seqPattern.removeLast();
-        }
+    if ((type & 2) > 0) { // last
+      if (finallytype == 0 || finallytype == 2) {
+        patternEnd--;
+      }
 
-        if (finallytype == 2) {
-          seqPattern.removeLast();
-        }
+      if (finallytype == 2) {
+        patternEnd--;
       }
     }
 
-    if (seqPattern.length() > seqSample.length()) {
+    int patternLength = Math.max(patternEnd - patternStart, 0);
+    if (patternLength > seqSample.length()) {
       return false;
     }
 
-    for (int i = 0; i < seqPattern.length(); i++) {
-      Instruction instrPattern = seqPattern.getInstr(i);
+    for (int i = 0; i < patternLength; i++) {
+      Instruction instrPattern = seqPattern.getInstr(patternStart + i);
       Instruction instrSample = seqSample.getInstr(i);
 
       // compare instructions with respect to jumps
@@ -901,11 +907,11 @@ public class FinallyProcessor {
       }
     }
 
-    if (seqPattern.length() < seqSample.length()) { // split in two blocks
+    if (patternLength < seqSample.length()) { // split in two blocks
 
       SimpleInstructionSequence seq = new SimpleInstructionSequence();
       LinkedList<Integer> oldOffsets = new LinkedList<Integer>();
-      for (int i = seqSample.length() - 1; i >= seqPattern.length(); i--) {
+      for (int i = seqSample.length() - 1; i >= patternLength; i--) {
         seq.addInstruction(0, seqSample.getInstr(i), -1);
         oldOffsets.addFirst(sample.getOldOffset(i));
         seqSample.removeInstruction(i);
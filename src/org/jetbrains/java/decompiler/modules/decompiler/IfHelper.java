@@ -549,6 +549,7 @@ public class IfHelper {
       //			}
 
       ifstat.iftype = IfStatement.IFTYPE_IFELSE;
+      ifstat.markModified();
     }
     else if (ifdirect && (!elsedirect || (noifstat && !noelsestat))) {  // if - then
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler;
+
+import org.jetbrains.java.decompiler.main.collectors.PassProfiler;
+import org.jetbrains.java.decompiler.main.collectors.WorkBudget;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a list of passes over a statement tree. A pass which reports a change restarts the schedule at its restart
+ * pass, the schedule is finished after the last pass. Pass runs are reported to the given profiler under the pass
+ * name and charged to the given work budget.
+ */
+public class PassScheduler {
+
+  public interface Pass {
+    // returns true if the schedule has to be restarted
+    boolean run(RootStatement root);
+  }
+
+  private final List<Entry> entries = new ArrayList<Entry>();
+  private final PassProfiler profiler;
+  private final WorkBudget budget;
+  private final int runCost;
+
+  public PassScheduler(PassProfiler profiler, WorkBudget budget, int runCost) {
+    this.profiler = profiler;
+    this.budget = budget;
+    this.runCost = runCost;
+  }
+
+  /**
+   * Adds a pass whose result doesn't affect the schedule. It runs every time it is reached.
+   */
+  public PassScheduler add(String name, Pass pass) {
+    entries.add(new Entry(name, pass, -1));
+    return this;
+  }
+
+  /**
+   * Adds a pass which continues the schedule with the already added pass of the given name after a change.
+   */
+  public PassScheduler add(String name, Pass pass, String restartName) {
+    int restart = -1;
+    for (int i = 0; i < entries.size(); i++) {
+      if (entries.get(i).name.equals(restartName)) {
+        restart = i;
+      }
+    }
+    if (restart < 0 && !name.equals(restartName)) {
+      throw new IllegalArgumentException("Unknown pass: " + restartName);
+    }
+
+    entries.add(new Entry(name, pass, restart < 0 ? entries.size() : restart));
+    return this;
+  }
+
+  public void run(RootStatement root) {
+
+    int index = 0;
+    while (index < entries.size()) {
+      Entry entry = entries.get(index);
+
+      budget.charge(runCost);
+
+      profiler.begin(entry.name);
+      boolean changed = entry.pass.run(root);
+      profiler.end();
+
+      index = changed && entry.restart >= 0 ? entry.restart : index + 1;
+    }
+  }
+
+  private static class Entry {
+    private final String name;
+    private final Pass pass;
+    private final int restart;
+
+    private Entry(String name, Pass pass, int restart) {
+      this.name = name;
+      this.pass = pass;
+      this.restart = restart;
+    }
+  }
+}
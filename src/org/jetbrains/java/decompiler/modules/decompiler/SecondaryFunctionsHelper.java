@@ -72,6 +72,7 @@ public class SecondaryFunctionsHelper {
           ifelsestat.getStats().removeWithKey(ifstat.id);
 
           ifelsestat.iftype = IfStatement.IFTYPE_IF;
+          ifelsestat.markModified();
           ifelsestat.setIfstat(ifelsestat.getElsestat());
           ifelsestat.setElsestat(null);
 
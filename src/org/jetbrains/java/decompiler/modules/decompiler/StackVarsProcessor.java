@@ -43,6 +43,9 @@ public class StackVarsProcessor {
 
     SSAUConstructorSparseEx ssau = null;
 
+    // modification count of the tree as last left unchanged by iterateStatements
+    int stableCount = -1;
+
     while (true) {
 
       boolean found = false;
@@ -68,6 +71,11 @@ public class StackVarsProcessor {
 
       SequenceHelper.condenseSequences(root);
 
+      // nothing changed since iterateStatements last found nothing to remove or inline
+      if (!found && root.getModificationCount() == stableCount) {
+        break;
+      }
+
       ssau = new SSAUConstructorSparseEx();
       ssau.splitVariables(root, mt);
 
@@ -83,6 +91,9 @@ public class StackVarsProcessor {
       if (iterateStatements(root, ssau)) {
         found = true;
       }
+      else {
+        stableCount = root.getModificationCount();
+      }
 
       //			System.out.println("***************** \r\n"+root.toJava());
 
@@ -93,21 +104,8 @@ public class StackVarsProcessor {
       }
     }
 
-    // remove unused assignments
-    ssau = new SSAUConstructorSparseEx();
-    ssau.splitVariables(root, mt);
-
-    //		try {
-    //			DotExporter.toDotFile(ssau.getSsuversions(), new File("c:\\Temp\\gr12_my.dot"));
-    //		} catch(Exception ex) {
-    //			ex.printStackTrace();
-    //		}
-
-    iterateStatements(root, ssau);
-
-    //		System.out.println("~~~~~~~~~~~~~~~~~~~~~~ \r\n"+root.toJava());
-
-    setVersionsToNull(root);
+    // no separate pass for unused assignments: the loop only ends once iterateStatements
+    // has left the tree unchanged, so another one on a fresh SSAU form would find nothing
   }
 
   private static void setVersionsToNull(Statement stat) {
@@ -129,23 +127,24 @@ public class StackVarsProcessor {
     }
   }
 
-  private static void setExprentVersionsToNull(Exprent exprent) {
-
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    for (Exprent expr : lst) {
+  private static final Exprent.ExprentVisitor VERSIONS_TO_NULL = new Exprent.ExprentVisitor() {
+    @Override
+    public int visit(Exprent expr) {
       if (expr.type == Exprent.EXPRENT_VAR) {
         ((VarExprent)expr).setVersion(0);
       }
+      return Exprent.VISIT_CONTINUE;
     }
+  };
+
+  private static void setExprentVersionsToNull(Exprent exprent) {
+    exprent.visitPreOrder(VERSIONS_TO_NULL);
   }
 
 
   private boolean iterateStatements(RootStatement root, SSAUConstructorSparseEx ssa) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    DirectGraph dgraph = root.getDirectGraph();
 
     boolean res = false;
 
@@ -440,17 +439,17 @@ public class StackVarsProcessor {
 
   private static HashSet<VarVersionPair> getAllVersions(Exprent exprent) {
 
-    HashSet<VarVersionPair> res = new HashSet<VarVersionPair>();
-
-    List<Exprent> listTemp = new ArrayList<Exprent>(exprent.getAllExprents(true));
-    listTemp.add(exprent);
+    final HashSet<VarVersionPair> res = new HashSet<VarVersionPair>();
 
-    for (Exprent expr : listTemp) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        VarExprent var = (VarExprent)expr;
-        res.add(new VarVersionPair(var));
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          res.add(new VarVersionPair((VarExprent)expr));
+        }
+        return Exprent.VISIT_CONTINUE;
       }
-    }
+    });
 
     return res;
   }
@@ -687,49 +686,50 @@ public class StackVarsProcessor {
     return true;
   }
 
-  private static HashMap<Integer, HashSet<VarVersionPair>> getAllVarVersions(VarVersionPair leftvar,
+  private static HashMap<Integer, HashSet<VarVersionPair>> getAllVarVersions(final VarVersionPair leftvar,
                                                                              Exprent exprent,
-                                                                             SSAUConstructorSparseEx ssau) {
-
-    HashMap<Integer, HashSet<VarVersionPair>> map = new HashMap<Integer, HashSet<VarVersionPair>>();
-    SFormsFastMapDirect mapLiveVars = ssau.getLiveVarVersionsMap(leftvar);
-
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    for (Exprent expr : lst) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        int varindex = ((VarExprent)expr).getIndex();
-        if (leftvar.var != varindex) {
-          if (mapLiveVars.containsKey(varindex)) {
-            HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
-            for (Integer vers : mapLiveVars.get(varindex)) {
-              verset.add(new VarVersionPair(varindex, vers.intValue()));
+                                                                             final SSAUConstructorSparseEx ssau) {
+
+    final HashMap<Integer, HashSet<VarVersionPair>> map = new HashMap<Integer, HashSet<VarVersionPair>>();
+    final SFormsFastMapDirect mapLiveVars = ssau.getLiveVarVersionsMap(leftvar);
+
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          int varindex = ((VarExprent)expr).getIndex();
+          if (leftvar.var != varindex) {
+            if (mapLiveVars.containsKey(varindex)) {
+              putLiveVersions(map, mapLiveVars, varindex);
+            }
+            else {
+              throw new RuntimeException("inkonsistent live map!");
             }
-            map.put(varindex, verset);
           }
           else {
-            throw new RuntimeException("inkonsistent live map!");
+            map.put(varindex, null);
           }
         }
-        else {
-          map.put(varindex, null);
-        }
-      }
-      else if (expr.type == Exprent.EXPRENT_FIELD) {
-        if (ssau.getMapFieldVars().containsKey(expr.id)) {
-          int varindex = ssau.getMapFieldVars().get(expr.id);
-          if (mapLiveVars.containsKey(varindex)) {
-            HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
-            for (Integer vers : mapLiveVars.get(varindex)) {
-              verset.add(new VarVersionPair(varindex, vers.intValue()));
+        else if (expr.type == Exprent.EXPRENT_FIELD) {
+          if (ssau.getMapFieldVars().containsKey(expr.id)) {
+            int varindex = ssau.getMapFieldVars().get(expr.id);
+            if (mapLiveVars.containsKey(varindex)) {
+              putLiveVersions(map, mapLiveVars, varindex);
             }
-            map.put(varindex, verset);
           }
         }
+        return Exprent.VISIT_CONTINUE;
       }
-    }
+    });
 
     return map;
   }
+
+  private static void putLiveVersions(HashMap<Integer, HashSet<VarVersionPair>> map, SFormsFastMapDirect mapLiveVars, int varindex) {
+    HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
+    for (Integer vers : mapLiveVars.get(varindex)) {
+      verset.add(new VarVersionPair(varindex, vers.intValue()));
+    }
+    map.put(varindex, verset);
+  }
 }
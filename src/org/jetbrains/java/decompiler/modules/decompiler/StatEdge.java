@@ -78,6 +78,7 @@ public class StatEdge {
 
   public void setType(int type) {
     this.type = type;
+    markModified();
   }
 
   public Statement getSource() {
@@ -85,7 +86,9 @@ public class StatEdge {
   }
 
   public void setSource(Statement source) {
+    markModified(); // the tree of the old source
     this.source = source;
+    markModified();
   }
 
   public Statement getDestination() {
@@ -94,6 +97,13 @@ public class StatEdge {
 
   public void setDestination(Statement destination) {
     this.destination = destination;
+    markModified();
+  }
+
+  private void markModified() {
+    if (source != null) {
+      source.markModified();
+    }
   }
 
   public List<String> getExceptions() {
@@ -16,12 +16,8 @@
 package org.jetbrains.java.decompiler.modules.decompiler;
 
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.ListStack;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
+import java.util.*;
 
 //  --------------------------------------------------------------------
 //    Algorithm
@@ -61,20 +57,12 @@ import java.util.List;
 //  }	
 //  -------------------------------------------------------------------- 
 
-public class StrongConnectivityHelper {
-
-  private ListStack<Statement> lstack;
+//  The graph is processed iteratively over int node indices, see findComponents(int[][], int[]).
 
-  private int ncounter;
-
-  private HashSet<Statement> tset;
-  private HashMap<Statement, Integer> dfsnummap;
-  private HashMap<Statement, Integer> lowmap;
+public class StrongConnectivityHelper {
 
   private List<List<Statement>> components;
 
-  private HashSet<Statement> setProcessed;
-
   // *****************************************************************************
   // constructors
   // *****************************************************************************
@@ -92,27 +80,162 @@ public class StrongConnectivityHelper {
 
   public List<List<Statement>> findComponents(Statement stat) {
 
-    components = new ArrayList<List<Statement>>();
-    setProcessed = new HashSet<Statement>();
+    // nodes: the statements followed by successors outside of them
+    List<Statement> lstNodes = new ArrayList<Statement>(stat.getStats());
+    Map<Statement, Integer> mapIndices = new IdentityHashMap<Statement, Integer>();
+    for (int i = 0; i < lstNodes.size(); i++) {
+      mapIndices.put(lstNodes.get(i), i);
+    }
 
-    visitTree(stat.getFirst());
+    List<int[]> lstSuccs = new ArrayList<int[]>();
+    for (int i = 0; i < lstNodes.size(); i++) {
+      List<Statement> lst = lstNodes.get(i).getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
+
+      int[] succs = new int[lst.size()];
+      for (int j = 0; j < succs.length; j++) {
+        Statement succ = lst.get(j);
+        Integer index = mapIndices.get(succ);
+        if (index == null) {
+          mapIndices.put(succ, index = lstNodes.size());
+          lstNodes.add(succ);
+        }
+        succs[j] = index;
+      }
+      lstSuccs.add(succs);
+    }
+
+    // tree roots: the first statement, statements without direct predecessors, all the rest
+    int count = stat.getStats().size();
+    int[] roots = new int[2 * count + 1];
+    int rootCount = 0;
 
-    for (Statement st : stat.getStats()) {
-      if (!setProcessed.contains(st) && st.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty()) {
-        visitTree(st);
+    roots[rootCount++] = mapIndices.get(stat.getFirst());
+    for (int i = 0; i < count; i++) {
+      if (lstNodes.get(i).getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty()) {
+        roots[rootCount++] = i;
       }
     }
+    for (int i = 0; i < count; i++) {
+      roots[rootCount++] = i;
+    }
+
+    components = new ArrayList<List<Statement>>();
 
-    // should not find any more nodes! FIXME: ??
-    for (Statement st : stat.getStats()) {
-      if (!setProcessed.contains(st)) {
-        visitTree(st);
+    for (int[] component : findComponents(lstSuccs.toArray(new int[lstSuccs.size()][]), Arrays.copyOf(roots, rootCount))) {
+      List<Statement> lst = new ArrayList<Statement>(component.length);
+      for (int index : component) {
+        lst.add(lstNodes.get(index));
       }
+      components.add(lst);
     }
 
     return components;
   }
 
+  /**
+   * Strongly connected components of a graph given as successor lists. Trees are started from the roots
+   * in the given order, skipping nodes already covered by a previous tree. Every node reachable from
+   * the roots is part of exactly one component.
+   */
+  public static List<int[]> findComponents(int[][] succs, int[] roots) {
+
+    int size = succs.length;
+
+    List<int[]> res = new ArrayList<int[]>();
+
+    boolean[] processed = new boolean[size];
+    boolean[] inTree = new boolean[size];
+    boolean[] onStack = new boolean[size]; // in the tree and not assigned to a component yet
+    int[] dfsnum = new int[size];
+    int[] low = new int[size];
+
+    int[] lstack = new int[size];
+    int[] stackNode = new int[size];
+    int[] stackIndex = new int[size];
+    int[] treeNodes = new int[size];
+
+    for (int root : roots) {
+      if (processed[root]) {
+        continue;
+      }
+
+      int lstackTop = 0, top = 0, treeCount = 0, counter = 0;
+
+      int node = root;
+      inTree[root] = true;
+      treeNodes[treeCount++] = root;
+
+      while (true) {
+        if (node >= 0) {
+          // enter node
+          lstack[lstackTop++] = node;
+          onStack[node] = true;
+          dfsnum[node] = counter;
+          low[node] = counter;
+          counter++;
+
+          stackNode[top] = node;
+          stackIndex[top++] = 0;
+
+          node = -1;
+        }
+
+        int current = stackNode[top - 1];
+        int[] lst = succs[current];
+
+        if (stackIndex[top - 1] < lst.length) {
+          int succ = lst[stackIndex[top - 1]++];
+
+          if (processed[succ]) {
+            continue;
+          }
+
+          if (inTree[succ]) {
+            if (onStack[succ]) {
+              low[current] = Math.min(low[current], dfsnum[succ]);
+            }
+          }
+          else {
+            inTree[succ] = true;
+            treeNodes[treeCount++] = succ;
+            node = succ;
+          }
+        }
+        else {
+          if (low[current] == dfsnum[current]) {
+            int start = lstackTop;
+            do {
+              start--;
+            }
+            while (lstack[start] != current);
+
+            int[] component = new int[lstackTop - start];
+            for (int i = 0; i < component.length; i++) {
+              component[i] = lstack[lstackTop - 1 - i];
+              onStack[component[i]] = false;
+            }
+            lstackTop = start;
+
+            res.add(component);
+          }
+
+          if (--top == 0) {
+            break;
+          }
+
+          int parent = stackNode[top - 1];
+          low[parent] = Math.min(low[parent], low[current]);
+        }
+      }
+
+      for (int i = 0; i < treeCount; i++) {
+        processed[treeNodes[i]] = true;
+      }
+    }
+
+    return res;
+  }
+
   public static boolean isExitComponent(List<Statement> lst) {
 
     HashSet<Statement> set = new HashSet<Statement>();
@@ -137,62 +260,6 @@ public class StrongConnectivityHelper {
     return res;
   }
 
-  // *****************************************************************************
-  // private methods
-  // *****************************************************************************
-
-  private void visitTree(Statement stat) {
-    lstack = new ListStack<Statement>();
-    ncounter = 0;
-    tset = new HashSet<Statement>();
-    dfsnummap = new HashMap<Statement, Integer>();
-    lowmap = new HashMap<Statement, Integer>();
-
-    visit(stat);
-
-    setProcessed.addAll(tset);
-    setProcessed.add(stat);
-  }
-
-  private void visit(Statement stat) {
-
-    lstack.push(stat);
-    dfsnummap.put(stat, ncounter);
-    lowmap.put(stat, ncounter);
-    ncounter++;
-
-    List<Statement> lstSuccs = stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD); // TODO: set?
-    lstSuccs.removeAll(setProcessed);
-
-    for (int i = 0; i < lstSuccs.size(); i++) {
-      Statement succ = lstSuccs.get(i);
-      int secvalue;
-
-      if (tset.contains(succ)) {
-        secvalue = dfsnummap.get(succ);
-      }
-      else {
-        tset.add(succ);
-        visit(succ);
-        secvalue = lowmap.get(succ);
-      }
-      lowmap.put(stat, Math.min(lowmap.get(stat), secvalue));
-    }
-
-
-    if (lowmap.get(stat).intValue() == dfsnummap.get(stat).intValue()) {
-      List<Statement> lst = new ArrayList<Statement>();
-      Statement v;
-      do {
-        v = lstack.pop();
-        lst.add(v);
-      }
-      while (v != stat);
-      components.add(lst);
-    }
-  }
-
-
   // *****************************************************************************
   // getter and setter methods
   // *****************************************************************************
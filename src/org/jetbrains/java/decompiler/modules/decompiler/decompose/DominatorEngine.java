@@ -17,15 +17,23 @@ package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DominatorEngine {
 
   private final Statement statement;
 
-  private final VBStyleCollection<Integer, Integer> colOrderedIDoms = new VBStyleCollection<Integer, Integer>();
+  // statement ids in reverse post order
+  private int[] ids;
+
+  // index of the immediate dominator, by reverse post order index
+  private int[] idoms;
+
+  private final Map<Integer, Integer> mapIndices = new HashMap<Integer, Integer>();
 
 
   public DominatorEngine(Statement statement) {
@@ -36,90 +44,80 @@ public class DominatorEngine {
     calcIDoms();
   }
 
-  private void orderStatements() {
+  private void calcIDoms() {
 
-    for (Statement stat : statement.getReversePostOrderList()) {
-      colOrderedIDoms.addWithKey(null, stat.id);
-    }
-  }
+    List<Statement> lstStats = statement.getReversePostOrderList();
 
-  private static Integer getCommonIDom(Integer key1, Integer key2, VBStyleCollection<Integer, Integer> orderedIDoms) {
+    int size = lstStats.size();
+    ids = new int[size];
 
-    if (key1 == null) {
-      return key2;
-    }
-    else if (key2 == null) {
-      return key1;
+    for (int i = 0; i < size; i++) {
+      ids[i] = lstStats.get(i).id;
+      mapIndices.put(ids[i], i);
     }
 
-    int index1 = orderedIDoms.getIndexByKey(key1);
-    int index2 = orderedIDoms.getIndexByKey(key2);
+    int[][] preds = new int[size][];
+    int[] buffer = new int[8];
 
-    while (index1 != index2) {
-      if (index1 > index2) {
-        key1 = orderedIDoms.getWithKey(key1);
-        index1 = orderedIDoms.getIndexByKey(key1);
+    for (int i = 0; i < size; i++) {
+      List<StatEdge> lstEdges = lstStats.get(i).getAllPredecessorEdges();
+      if (buffer.length < lstEdges.size()) {
+        buffer = new int[lstEdges.size()];
       }
-      else {
-        key2 = orderedIDoms.getWithKey(key2);
-        index2 = orderedIDoms.getIndexByKey(key2);
+
+      int count = 0;
+      for (StatEdge edge : lstEdges) {
+        Integer index = mapIndices.get(edge.getSource().id);
+        if (index != null) {
+          buffer[count++] = index;
+        }
       }
+      preds[i] = Arrays.copyOf(buffer, count);
     }
 
-    return key1;
-  }
-
-  private void calcIDoms() {
-
-    orderStatements();
-
-    colOrderedIDoms.putWithKey(statement.getFirst().id, statement.getFirst().id);
+    // the first statement is the only root
+    boolean[] roots = new boolean[size];
+    roots[0] = true;
 
-    // exclude first statement
-    List<Integer> lstIds = colOrderedIDoms.getLstKeys().subList(1, colOrderedIDoms.getLstKeys().size());
-
-    while (true) {
-
-      boolean changed = false;
+    idoms = FastDominatorHelper.calcIDoms(preds, roots);
+  }
 
-      for (Integer id : lstIds) {
+  public int size() {
+    return ids.length;
+  }
 
-        Statement stat = statement.getStats().getWithKey(id);
-        Integer idom = null;
+  // statement id at the given reverse post order index
+  public int getId(int index) {
+    return ids[index];
+  }
 
-        for (StatEdge edge : stat.getAllPredecessorEdges()) {
-          if (colOrderedIDoms.getWithKey(edge.getSource().id) != null) {
-            idom = getCommonIDom(idom, edge.getSource().id, colOrderedIDoms);
-          }
-        }
+  // id of the immediate dominator of the statement at the given reverse post order index
+  public int getIDom(int index) {
+    return ids[idoms[index]];
+  }
 
-        Integer oldidom = colOrderedIDoms.putWithKey(idom, id);
-        if (!idom.equals(oldidom)) {
-          changed = true;
-        }
-      }
+  public boolean isDominator(Integer node, Integer dom) {
 
-      if (!changed) {
-        break;
-      }
+    if (node.equals(dom)) {
+      return true;
     }
-  }
 
-  public VBStyleCollection<Integer, Integer> getOrderedIDoms() {
-    return colOrderedIDoms;
+    Integer domIndex = mapIndices.get(dom);
+    return domIndex != null && isDominatorByIndex(mapIndices.get(node), domIndex);
   }
 
-  public boolean isDominator(Integer node, Integer dom) {
+  // same as isDominator() for reverse post order indices
+  public boolean isDominatorByIndex(int index, int domIndex) {
 
-    while (!node.equals(dom)) {
+    while (index != domIndex) {
 
-      Integer idom = colOrderedIDoms.getWithKey(node);
+      int idom = idoms[index];
 
-      if (idom.equals(node)) {
+      if (idom == index) {
         return false; // root node
       }
       else {
-        node = idom;
+        index = idom;
       }
     }
 
@@ -17,7 +17,6 @@ package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -77,12 +76,9 @@ public class DominatorTreeExceptionFilter {
 
   private void buildDominatorTree() {
 
-    VBStyleCollection<Integer, Integer> orderedIDoms = domEngine.getOrderedIDoms();
-
-    List<Integer> lstKeys = orderedIDoms.getLstKeys();
-    for (int index = lstKeys.size() - 1; index >= 0; index--) {
-      Integer key = lstKeys.get(index);
-      Integer idom = orderedIDoms.get(index);
+    for (int index = domEngine.size() - 1; index >= 0; index--) {
+      Integer key = domEngine.getId(index);
+      Integer idom = domEngine.getIDom(index);
 
       Set<Integer> set = mapTreeBranches.get(idom);
       if (set == null) {
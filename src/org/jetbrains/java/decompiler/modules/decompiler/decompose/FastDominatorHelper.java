@@ -0,0 +1,264 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.decompose;
+
+import java.util.Arrays;
+
+/**
+ * Immediate dominators of a graph with dense node indices. Nodes are numbered in reverse post order,
+ * predecessor lists contain indices of that numbering only.
+ */
+public class FastDominatorHelper {
+
+  // single rooted graphs of at least this size are handled by Lengauer-Tarjan
+  public static final int LENGAUER_TARJAN_THRESHOLD = 1024;
+
+  private static final int NONE = -1;
+
+  /**
+   * Returns the index of the immediate dominator of every node. Roots and nodes reachable from
+   * more than one root without a common dominator are their own immediate dominators.
+   */
+  public static int[] calcIDoms(int[][] preds, boolean[] roots) {
+
+    int size = preds.length;
+
+    if (size >= LENGAUER_TARJAN_THRESHOLD && roots[0]) {
+      int count = 0;
+      for (boolean root : roots) {
+        if (root) {
+          count++;
+        }
+      }
+
+      if (count == 1) {
+        int[] idoms = calcIDomsLengauerTarjan(preds);
+        if (idoms != null) {
+          return idoms;
+        }
+      }
+    }
+
+    return calcIDomsIterative(preds, roots);
+  }
+
+  // Cooper, Harvey, Kennedy: "A Simple, Fast Dominance Algorithm"
+  static int[] calcIDomsIterative(int[][] preds, boolean[] roots) {
+
+    int size = preds.length;
+
+    int[] idoms = new int[size];
+    Arrays.fill(idoms, NONE);
+
+    while (true) {
+
+      boolean changed = false;
+
+      for (int node = 0; node < size; node++) {
+
+        int idom = NONE;
+
+        if (!roots[node]) {
+          for (int pred : preds[node]) {
+            if (idoms[pred] != NONE) {
+              idom = idom == NONE ? pred : getCommonIDom(idom, pred, idoms);
+              if (idom == NONE) {
+                break; // no idom found: merging point of two trees
+              }
+            }
+          }
+        }
+
+        if (idom == NONE) {
+          idom = node;
+        }
+
+        if (idoms[node] != idom) {
+          idoms[node] = idom;
+          changed = true;
+        }
+      }
+
+      if (!changed) {
+        break;
+      }
+    }
+
+    return idoms;
+  }
+
+  private static int getCommonIDom(int node1, int node2, int[] idoms) {
+
+    while (node1 != node2) {
+      if (node1 > node2) {
+        int old = node1;
+        node1 = idoms[node1];
+        if (old == node1) { // root or merging point
+          return NONE;
+        }
+      }
+      else {
+        int old = node2;
+        node2 = idoms[node2];
+        if (old == node2) {
+          return NONE;
+        }
+      }
+    }
+
+    return node1;
+  }
+
+  // Lengauer, Tarjan: "A Fast Algorithm for Finding Dominators in a Flowgraph", with the root at index 0.
+  // Returns null if some node can't be reached from the root along the given edges.
+  static int[] calcIDomsLengauerTarjan(int[][] preds) {
+
+    int size = preds.length;
+
+    // successor lists
+    int[] succCount = new int[size + 1];
+    for (int[] lst : preds) {
+      for (int pred : lst) {
+        succCount[pred + 1]++;
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      succCount[i + 1] += succCount[i];
+    }
+    int[] succs = new int[succCount[size]];
+    int[] fill = Arrays.copyOf(succCount, size);
+    for (int node = 0; node < size; node++) {
+      for (int pred : preds[node]) {
+        succs[fill[pred]++] = node;
+      }
+    }
+
+    // depth-first numbering
+    int[] dfnum = new int[size];
+    Arrays.fill(dfnum, NONE);
+    int[] vertex = new int[size];
+    int[] parent = new int[size];
+    int[] stackNode = new int[size];
+    int[] stackEdge = new int[size];
+
+    int count = 0;
+    int top = 0;
+
+    dfnum[0] = count;
+    vertex[count++] = 0;
+    parent[0] = NONE;
+    stackNode[0] = 0;
+    stackEdge[0] = succCount[0];
+
+    while (top >= 0) {
+      int node = stackNode[top];
+      if (stackEdge[top] < succCount[node + 1]) {
+        int succ = succs[stackEdge[top]++];
+        if (dfnum[succ] == NONE) {
+          dfnum[succ] = count;
+          vertex[count++] = succ;
+          parent[succ] = node;
+          top++;
+          stackNode[top] = succ;
+          stackEdge[top] = succCount[succ];
+        }
+      }
+      else {
+        top--;
+      }
+    }
+
+    if (count < size) {
+      return null;
+    }
+
+    int[] semi = new int[size];
+    int[] ancestor = new int[size];
+    int[] best = new int[size];
+    int[] samedom = new int[size];
+    int[] idoms = new int[size];
+    int[] bucketHead = new int[size];
+    int[] bucketNext = new int[size];
+
+    Arrays.fill(ancestor, NONE);
+    Arrays.fill(samedom, NONE);
+    Arrays.fill(bucketHead, NONE);
+
+    for (int i = size - 1; i > 0; i--) {
+      int node = vertex[i];
+      int p = parent[node];
+      int s = p;
+
+      for (int pred : preds[node]) {
+        int s1 = dfnum[pred] <= dfnum[node] ? pred : semi[getAncestorWithLowestSemi(pred, ancestor, best, semi, dfnum, stackNode)];
+        if (dfnum[s1] < dfnum[s]) {
+          s = s1;
+        }
+      }
+
+      semi[node] = s;
+      bucketNext[node] = bucketHead[s];
+      bucketHead[s] = node;
+
+      ancestor[node] = p;
+      best[node] = node;
+
+      for (int v = bucketHead[p]; v != NONE; v = bucketNext[v]) {
+        int y = getAncestorWithLowestSemi(v, ancestor, best, semi, dfnum, stackNode);
+        if (semi[y] == semi[v]) {
+          idoms[v] = p;
+        }
+        else {
+          samedom[v] = y;
+        }
+      }
+      bucketHead[p] = NONE;
+    }
+
+    idoms[0] = 0;
+    for (int i = 1; i < size; i++) {
+      int node = vertex[i];
+      if (samedom[node] != NONE) {
+        idoms[node] = idoms[samedom[node]];
+      }
+    }
+
+    return idoms;
+  }
+
+  // iterative path compression
+  private static int getAncestorWithLowestSemi(int node, int[] ancestor, int[] best, int[] semi, int[] dfnum, int[] stack) {
+
+    int top = 0;
+    int x = node;
+    while (ancestor[ancestor[x]] != NONE) {
+      stack[top++] = x;
+      x = ancestor[x];
+    }
+
+    while (top > 0) {
+      int y = stack[--top];
+      int a = ancestor[y];
+      int b = best[a];
+      ancestor[y] = ancestor[a];
+      if (dfnum[semi[b]] < dfnum[semi[best[y]]]) {
+        best[y] = b;
+      }
+    }
+
+    return best[node];
+  }
+}
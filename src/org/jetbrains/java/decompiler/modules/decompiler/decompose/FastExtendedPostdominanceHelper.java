@@ -17,42 +17,40 @@ package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.FastFixedSetFactory;
-import org.jetbrains.java.decompiler.util.FastFixedSetFactory.FastFixedSet;
-import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.util.*;
-import java.util.Map.Entry;
 
+/**
+ * Extended postdominators of the statements of a general statement. Sets are kept as a bit matrix
+ * indexed by the reverse post order position of the statements.
+ */
 public class FastExtendedPostdominanceHelper {
 
-  private List<Statement> lstReversePostOrderList;
+  private Statement statement;
 
-  private HashMap<Integer, FastFixedSet<Integer>> mapSupportPoints = new LinkedHashMap<Integer, FastFixedSet<Integer>>();
+  // statements in reverse post order
+  private Statement[] nodes;
 
-  private final HashMap<Integer, FastFixedSet<Integer>> mapExtPostdominators = new LinkedHashMap<Integer, FastFixedSet<Integer>>();
+  private final Map<Integer, Integer> mapIndices = new HashMap<Integer, Integer>();
 
-  private Statement statement;
+  private int words;
 
-  private FastFixedSetFactory<Integer> factory;
+  // head -> candidate postdominators
+  private long[][] extPostdominators;
 
   public HashMap<Integer, LinkedHashSet<Integer>> getExtendedPostdominators(Statement statement) {
 
     this.statement = statement;
 
-    HashSet<Integer> set = new LinkedHashSet<Integer>();
-    for (Statement st : statement.getStats()) {
-      set.add(st.id);
-    }
-    this.factory = new FastFixedSetFactory<Integer>(set);
+    List<Statement> lstReversePostOrderList = statement.getReversePostOrderList();
 
-    lstReversePostOrderList = statement.getReversePostOrderList();
+    int size = lstReversePostOrderList.size();
+    nodes = lstReversePostOrderList.toArray(new Statement[size]);
+    words = (size >>> 6) + 1;
 
-    //		try {
-    //			DotExporter.toDotFile(statement, new File("c:\\Temp\\stat1.dot"));
-    //		} catch (Exception ex) {
-    //			ex.printStackTrace();
-    //		}
+    for (int i = 0; i < size; i++) {
+      mapIndices.put(nodes[i].id, i);
+    }
 
     calcDefaultReachableSets();
 
@@ -66,10 +64,28 @@ public class FastExtendedPostdominanceHelper {
     filterOnDominance(filter);
 
     HashMap<Integer, LinkedHashSet<Integer>> res = new HashMap<Integer, LinkedHashSet<Integer>>();
-    for (Entry<Integer, FastFixedSet<Integer>> entry : mapExtPostdominators.entrySet()) {
-      List<Integer> lst = new ArrayList<>(entry.getValue().toPlainSet());
-      Collections.sort(lst);
-      res.put(entry.getKey(), new LinkedHashSet<>(lst));
+    int[] ids = new int[size];
+
+    for (Statement stat : statement.getStats()) {
+      Integer head = mapIndices.get(stat.id);
+      if (head == null || isEmpty(extPostdominators[head])) {
+        continue;
+      }
+
+      int count = 0;
+      long[] row = extPostdominators[head];
+      for (int w = 0; w < words; w++) {
+        for (long block = row[w]; block != 0; block &= block - 1) {
+          ids[count++] = nodes[(w << 6) + Long.numberOfTrailingZeros(block)].id;
+        }
+      }
+      Arrays.sort(ids, 0, count);
+
+      LinkedHashSet<Integer> set = new LinkedHashSet<Integer>();
+      for (int i = 0; i < count; i++) {
+        set.add(ids[i]);
+      }
+      res.put(stat.id, set);
     }
 
     return res;
@@ -80,152 +96,161 @@ public class FastExtendedPostdominanceHelper {
 
     DominatorEngine engine = filter.getDomEngine();
 
-    for (Integer head : new HashSet<Integer>(mapExtPostdominators.keySet())) {
+    int size = nodes.length;
+
+    // reverse post order position -> position in the dominator engine
+    int[] domIndices = new int[size];
+    for (int i = 0; i < engine.size(); i++) {
+      domIndices[mapIndices.get(engine.getId(i))] = i;
+    }
+
+    int[][] succs = getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
 
-      FastFixedSet<Integer> setPostdoms = mapExtPostdominators.get(head);
+    int[] queue = new int[size];
+    long[][] paths = new long[size][];
+    int[] visited = new int[size];
 
-      LinkedList<Statement> stack = new LinkedList<Statement>();
-      LinkedList<FastFixedSet<Integer>> stackPath = new LinkedList<FastFixedSet<Integer>>();
+    for (int head = 0; head < size; head++) {
 
-      stack.add(statement.getStats().getWithKey(head));
-      stackPath.add(factory.spawnEmptySet());
+      long[] setPostdoms = extPostdominators[head];
+      if (isEmpty(setPostdoms)) {
+        continue;
+      }
 
-      Set<Statement> setVisited = new HashSet<Statement>();
+      int stamp = head + 1;
+      int first = 0, last = 0;
 
-      setVisited.add(stack.getFirst());
+      queue[last] = head;
+      paths[last++] = new long[words];
+      visited[head] = stamp;
 
-      while (!stack.isEmpty()) {
+      while (first < last) {
 
-        Statement stat = stack.removeFirst();
-        FastFixedSet<Integer> path = stackPath.removeFirst();
+        int stat = queue[first];
+        long[] path = paths[first];
+        paths[first++] = null;
 
-        if (setPostdoms.contains(stat.id)) {
-          path.add(stat.id);
+        if (contains(setPostdoms, stat)) {
+          path[stat >>> 6] |= 1L << stat;
         }
 
-        if (path.contains(setPostdoms)) {
+        if (containsAll(path, setPostdoms)) {
           continue;
         }
 
-        if(!engine.isDominator(stat.id, head)) {
-          setPostdoms.complement(path);
+        if (!engine.isDominatorByIndex(domIndices[stat], domIndices[head])) {
+          for (int w = 0; w < words; w++) {
+            setPostdoms[w] &= ~path[w];
+          }
           continue;
         }
 
-        for (StatEdge edge : stat.getSuccessorEdges(StatEdge.TYPE_REGULAR)) {
-
-          Statement edge_destination = edge.getDestination();
-
-          if(!setVisited.contains(edge_destination)) {
-
-            stack.add(edge_destination);
-            stackPath.add(path.getCopy());
+        for (int succ : succs[stat]) {
+          if (visited[succ] != stamp) {
+            queue[last] = succ;
+            paths[last++] = path.clone();
 
-            setVisited.add(edge_destination);
+            visited[succ] = stamp;
           }
         }
       }
-
-      if (setPostdoms.isEmpty()) {
-        mapExtPostdominators.remove(head);
-      }
     }
   }
 
 
   private void filterOnExceptionRanges(DominatorTreeExceptionFilter filter) {
 
+    for (int head = 0; head < nodes.length; head++) {
 
-    for (Integer head : new HashSet<Integer>(mapExtPostdominators.keySet())) {
-
-      FastFixedSet<Integer> set = mapExtPostdominators.get(head);
-      for (Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
-        if (!filter.acceptStatementPair(head, it.next())) {
-          it.remove();
+      long[] row = extPostdominators[head];
+      for (int w = 0; w < words; w++) {
+        for (long block = row[w]; block != 0; block &= block - 1) {
+          int exit = (w << 6) + Long.numberOfTrailingZeros(block);
+          if (!filter.acceptStatementPair(nodes[head].id, nodes[exit].id)) {
+            row[w] &= ~(1L << exit);
+          }
         }
       }
-      if (set.isEmpty()) {
-        mapExtPostdominators.remove(head);
-      }
     }
   }
 
 
   private void removeErroneousNodes() {
 
-    mapSupportPoints = new HashMap<Integer, FastFixedSet<Integer>>();
+    int size = nodes.length;
 
-    calcReachabilitySuppPoints(StatEdge.TYPE_REGULAR);
+    int[][] preds = getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD);
+    int[][] succs = getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
 
-    iterateReachability(new IReachabilityAction() {
-      public boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets) {
+    // nodes reaching a node along regular edges
+    long[][] reachability = calcReachability(preds, succs, false);
 
-        Integer nodeid = node.id;
+    long[] setIntersection = new long[words];
 
-        FastFixedSet<Integer> setReachability = mapSets.get(nodeid);
-        List<FastFixedSet<Integer>> lstPredSets = new ArrayList<FastFixedSet<Integer>>();
+    for (int node = 0; node < size; node++) {
 
-        for (StatEdge prededge : node.getPredecessorEdges(StatEdge.TYPE_REGULAR)) {
-          FastFixedSet<Integer> setPred = mapSets.get(prededge.getSource().id);
-          if (setPred == null) {
-            setPred = mapSupportPoints.get(prededge.getSource().id);
-          }
-
-          // setPred cannot be empty as it is a reachability set
-          lstPredSets.add(setPred);
-        }
+      long[] setReachability = reachability[node];
+      int[] lstPreds = preds[node];
 
-        for (Integer id : setReachability.toPlainSet()) {
+      for (int w = 0; w < words; w++) {
+        for (long block = setReachability[w]; block != 0; block &= block - 1) {
+          int id = (w << 6) + Long.numberOfTrailingZeros(block);
 
-          FastFixedSet<Integer> setReachabilityCopy = setReachability.getCopy();
-
-          FastFixedSet<Integer> setIntersection = factory.spawnEmptySet();
           boolean isIntersectionInitialized = false;
 
-          for (FastFixedSet<Integer> predset : lstPredSets) {
-            if (predset.contains(id)) {
+          for (int pred : lstPreds) {
+            long[] predset = reachability[pred];
+            if (contains(predset, id)) {
               if (!isIntersectionInitialized) {
-                setIntersection.union(predset);
+                System.arraycopy(predset, 0, setIntersection, 0, words);
                 isIntersectionInitialized = true;
               }
               else {
-                setIntersection.intersection(predset);
+                for (int i = 0; i < words; i++) {
+                  setIntersection[i] &= predset[i];
+                }
               }
             }
           }
 
-          if (nodeid != id.intValue()) {
-            setIntersection.add(nodeid);
+          if (!isIntersectionInitialized) {
+            Arrays.fill(setIntersection, 0);
+          }
+
+          if (node != id) {
+            setIntersection[node >>> 6] |= 1L << node;
           }
           else {
-            setIntersection.remove(nodeid);
+            setIntersection[node >>> 6] &= ~(1L << node);
           }
 
-          setReachabilityCopy.complement(setIntersection);
-
-          mapExtPostdominators.get(id).complement(setReachabilityCopy);
+          long[] setPostdoms = extPostdominators[id];
+          for (int i = 0; i < words; i++) {
+            setPostdoms[i] &= ~(setReachability[i] & ~setIntersection[i]);
+          }
         }
-
-        return false;
       }
-    }, StatEdge.TYPE_REGULAR);
+    }
 
     // exception handlers cannot be postdominator nodes
-    // TODO: replace with a standard set?
-    FastFixedSet<Integer> setHandlers = factory.spawnEmptySet();
+    long[] setHandlers = new long[words];
     boolean handlerfound = false;
 
     for (Statement stat : statement.getStats()) {
-      if (stat.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty() &&
+      Integer index = mapIndices.get(stat.id);
+      if (index != null &&
+          stat.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty() &&
           !stat.getPredecessorEdges(StatEdge.TYPE_EXCEPTION).isEmpty()) { // exception handler
-        setHandlers.add(stat.id);
+        setHandlers[index >>> 6] |= 1L << index;
         handlerfound = true;
       }
     }
 
     if (handlerfound) {
-      for (FastFixedSet<Integer> set : mapExtPostdominators.values()) {
-        set.complement(setHandlers);
+      for (long[] set : extPostdominators) {
+        for (int i = 0; i < words; i++) {
+          set[i] &= ~setHandlers[i];
+        }
       }
     }
   }
@@ -235,118 +260,113 @@ public class FastExtendedPostdominanceHelper {
 
     int edgetype = StatEdge.TYPE_REGULAR | StatEdge.TYPE_EXCEPTION;
 
-    calcReachabilitySuppPoints(edgetype);
+    // every node reachable from the head is a candidate
+    extPostdominators = calcReachability(getNeighbours(edgetype, Statement.DIRECTION_FORWARD),
+                                         getNeighbours(edgetype, Statement.DIRECTION_BACKWARD), true);
+  }
 
-    for (Statement stat : statement.getStats()) {
-      mapExtPostdominators.put(stat.id, factory.spawnEmptySet());
-    }
+  /**
+   * Reflexive transitive closure: the set of a node is the node itself joined with the sets of all nodes
+   * in sources[node]. A node is revisited whenever the set of one of its sources has changed.
+   */
+  private long[][] calcReachability(int[][] sources, int[][] dependents, boolean postorder) {
 
-    iterateReachability(new IReachabilityAction() {
-      public boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets) {
+    int size = nodes.length;
 
-        Integer nodeid = node.id;
-        FastFixedSet<Integer> setReachability = mapSets.get(nodeid);
+    long[][] sets = new long[size][words];
 
-        for (Integer id : setReachability.toPlainSet()) {
-          mapExtPostdominators.get(id).add(nodeid);
-        }
+    int[] queue = new int[size];
+    boolean[] queued = new boolean[size];
 
-        return false;
-      }
-    }, edgetype);
-  }
+    // first pass in an order which visits sources first (unless there are loops)
+    for (int i = 0; i < size; i++) {
+      int node = postorder ? size - 1 - i : i;
+      queue[i] = node;
+      queued[node] = true;
+      sets[node][node >>> 6] |= 1L << node;
+    }
 
+    int first = 0, count = size;
 
-  private void calcReachabilitySuppPoints(final int edgetype) {
+    while (count > 0) {
 
-    iterateReachability(new IReachabilityAction() {
-      public boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets) {
+      int node = queue[first];
+      first = (first + 1) % size;
+      count--;
+      queued[node] = false;
 
-        // consider to be a support point
-        for (StatEdge sucedge : node.getAllSuccessorEdges()) {
-          if ((sucedge.getType() & edgetype) != 0) {
-            if (mapSets.containsKey(sucedge.getDestination().id)) {
-              FastFixedSet<Integer> setReachability = mapSets.get(node.id);
+      long[] set = sets[node];
+      boolean changed = false;
 
-              if (!InterpreterUtil.equalObjects(setReachability, mapSupportPoints.get(node.id))) {
-                mapSupportPoints.put(node.id, setReachability);
-                return true;
-              }
-            }
+      for (int source : sources[node]) {
+        long[] setSource = sets[source];
+        for (int i = 0; i < words; i++) {
+          long value = set[i] | setSource[i];
+          if (value != set[i]) {
+            set[i] = value;
+            changed = true;
           }
         }
-
-        return false;
       }
-    }, edgetype);
-  }
 
-  private void iterateReachability(IReachabilityAction action, int edgetype) {
-
-    while (true) {
-
-      boolean iterate = false;
-
-      HashMap<Integer, FastFixedSet<Integer>> mapSets = new HashMap<Integer, FastFixedSet<Integer>>();
+      if (changed) {
+        for (int dependent : dependents[node]) {
+          if (!queued[dependent]) {
+            queue[(first + count) % size] = dependent;
+            queued[dependent] = true;
+            count++;
+          }
+        }
+      }
+    }
 
-      for (Statement stat : lstReversePostOrderList) {
+    return sets;
+  }
 
-        FastFixedSet<Integer> set = factory.spawnEmptySet();
-        set.add(stat.id);
+  // positions of the neighbours connected by edges of the given type, restricted to the reverse post order
+  private int[][] getNeighbours(int edgetype, int direction) {
 
-        for (StatEdge prededge : stat.getAllPredecessorEdges()) {
-          if ((prededge.getType() & edgetype) != 0) {
-            Statement pred = prededge.getSource();
+    int[][] res = new int[nodes.length][];
 
-            FastFixedSet<Integer> setPred = mapSets.get(pred.id);
-            if (setPred == null) {
-              setPred = mapSupportPoints.get(pred.id);
-            }
+    for (int i = 0; i < nodes.length; i++) {
+      List<StatEdge> lstEdges = direction == Statement.DIRECTION_FORWARD ? nodes[i].getSuccessorEdges(edgetype)
+                                                                       : nodes[i].getPredecessorEdges(edgetype);
+      int[] lst = new int[lstEdges.size()];
+      int count = 0;
 
-            if (setPred != null) {
-              set.union(setPred);
-            }
-          }
+      for (StatEdge edge : lstEdges) {
+        Statement node = direction == Statement.DIRECTION_FORWARD ? edge.getDestination() : edge.getSource();
+        Integer index = mapIndices.get(node.id);
+        if (index != null) {
+          lst[count++] = index;
         }
+      }
 
-        mapSets.put(stat.id, set);
-
-        if (action != null) {
-          iterate |= action.action(stat, mapSets);
-        }
+      res[i] = count == lst.length ? lst : Arrays.copyOf(lst, count);
+    }
 
-        // remove reachability information of fully processed nodes (saves memory)
-        for (StatEdge prededge : stat.getAllPredecessorEdges()) {
-          if ((prededge.getType() & edgetype) != 0) {
-            Statement pred = prededge.getSource();
-
-            if (mapSets.containsKey(pred.id)) {
-              boolean remstat = true;
-              for (StatEdge sucedge : pred.getAllSuccessorEdges()) {
-                if ((sucedge.getType() & edgetype) != 0) {
-                  if (!mapSets.containsKey(sucedge.getDestination().id)) {
-                    remstat = false;
-                    break;
-                  }
-                }
-              }
+    return res;
+  }
 
-              if (remstat) {
-                mapSets.put(pred.id, null);
-              }
-            }
-          }
-        }
-      }
+  private static boolean contains(long[] set, int index) {
+    return (set[index >>> 6] & (1L << index)) != 0;
+  }
 
-      if (!iterate) {
-        break;
+  private static boolean containsAll(long[] set, long[] subset) {
+    for (int i = 0; i < set.length; i++) {
+      if ((subset[i] & ~set[i]) != 0) {
+        return false;
       }
     }
+    return true;
   }
 
-
-  private interface IReachabilityAction {
-    boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets);
+  private static boolean isEmpty(long[] set) {
+    for (long block : set) {
+      if (block != 0) {
+        return false;
+      }
+    }
+    return true;
   }
 }
@@ -15,18 +15,20 @@
  */
 package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
-
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class GenericDominatorEngine {
 
   private final IGraph graph;
 
-  private final VBStyleCollection<IGraphNode, IGraphNode> colOrderedIDoms = new VBStyleCollection<IGraphNode, IGraphNode>();
+  // index of the immediate dominator, by reverse post order index
+  private int[] idoms;
 
-  private Set<? extends IGraphNode> setRoots;
+  private final Map<IGraphNode, Integer> mapIndices = new HashMap<IGraphNode, Integer>();
 
   public GenericDominatorEngine(IGraph graph) {
     this.graph = graph;
@@ -36,114 +38,73 @@ public class GenericDominatorEngine {
     calcIDoms();
   }
 
-  private void orderNodes() {
-
-    setRoots = graph.getRoots();
-
-    for (IGraphNode node : graph.getReversePostOrderList()) {
-      colOrderedIDoms.addWithKey(null, node);
-    }
-  }
+  private void calcIDoms() {
 
-  private static IGraphNode getCommonIDom(IGraphNode node1, IGraphNode node2, VBStyleCollection<IGraphNode, IGraphNode> orderedIDoms) {
+    Set<? extends IGraphNode> setRoots = graph.getRoots();
+    List<? extends IGraphNode> lstNodes = graph.getReversePostOrderList();
 
-    IGraphNode nodeOld;
+    int size = lstNodes.size();
+    IGraphNode[] nodes = lstNodes.toArray(new IGraphNode[size]);
 
-    if (node1 == null) {
-      return node2;
-    }
-    else if (node2 == null) {
-      return node1;
+    for (int i = 0; i < size; i++) {
+      mapIndices.put(nodes[i], i);
     }
 
-    int index1 = orderedIDoms.getIndexByKey(node1);
-    int index2 = orderedIDoms.getIndexByKey(node2);
+    int[][] preds = new int[size][];
+    boolean[] roots = new boolean[size];
+    int[] buffer = new int[8];
 
-    while (index1 != index2) {
-      if (index1 > index2) {
-        nodeOld = node1;
-        node1 = orderedIDoms.getWithKey(node1);
-
-        if (nodeOld == node1) { // no idom - root or merging point
-          return null;
-        }
+    for (int i = 0; i < size; i++) {
+      if (setRoots.contains(nodes[i])) {
+        roots[i] = true;
+        preds[i] = new int[0];
+        continue;
+      }
 
-        index1 = orderedIDoms.getIndexByKey(node1);
+      List<? extends IGraphNode> lstPreds = nodes[i].getPredecessors();
+      if (buffer.length < lstPreds.size()) {
+        buffer = new int[lstPreds.size()];
       }
-      else {
-        nodeOld = node2;
-        node2 = orderedIDoms.getWithKey(node2);
 
-        if (nodeOld == node2) { // no idom - root or merging point
-          return null;
+      int count = 0;
+      for (IGraphNode pred : lstPreds) {
+        Integer index = mapIndices.get(pred);
+        if (index != null) {
+          buffer[count++] = index;
         }
-
-        index2 = orderedIDoms.getIndexByKey(node2);
       }
+      preds[i] = Arrays.copyOf(buffer, count);
     }
 
-    return node1;
+    idoms = FastDominatorHelper.calcIDoms(preds, roots);
   }
 
-  private void calcIDoms() {
-
-    orderNodes();
-
-    List<IGraphNode> lstNodes = colOrderedIDoms.getLstKeys();
-
-    while (true) {
-
-      boolean changed = false;
-
-      for (IGraphNode node : lstNodes) {
-
-        IGraphNode idom = null;
-
-        if (!setRoots.contains(node)) {
-          for (IGraphNode pred : node.getPredecessors()) {
-            if (colOrderedIDoms.getWithKey(pred) != null) {
-              idom = getCommonIDom(idom, pred, colOrderedIDoms);
-              if (idom == null) {
-                break; // no idom found: merging point of two trees
-              }
-            }
-          }
-        }
-
-        if (idom == null) {
-          idom = node;
-        }
-
-        IGraphNode oldidom = colOrderedIDoms.putWithKey(idom, node);
-        if (!idom.equals(oldidom)) { // oldidom is null iff the node is touched for the first time
-          changed = true;
-        }
-      }
+  public boolean isDominator(IGraphNode node, IGraphNode dom) {
 
-      if (!changed) {
-        break;
-      }
+    if (node.equals(dom)) {
+      return true;
     }
-  }
 
-  public VBStyleCollection<IGraphNode, IGraphNode> getOrderedIDoms() {
-    return colOrderedIDoms;
-  }
+    Integer index = mapIndices.get(node);
+    if (index == null) {
+      throw new RuntimeException("Inconsistent idom sequence discovered!");
+    }
 
-  public boolean isDominator(IGraphNode node, IGraphNode dom) {
+    Integer domIndex = mapIndices.get(dom);
+    if (domIndex == null) {
+      return false;
+    }
 
-    while (!node.equals(dom)) {
+    int current = index;
+    while (current != domIndex) {
 
-      IGraphNode idom = colOrderedIDoms.getWithKey(node);
+      int idom = idoms[current];
 
-      if (idom == node) {
+      if (idom == current) {
         return false; // root node or merging point
       }
-      else if (idom == null) {
-        throw new RuntimeException("Inconsistent idom sequence discovered!");
-      }
       else {
-        node = idom;
+        current = idom;
       }
     }
 
@@ -75,6 +75,16 @@ public class ArrayExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return 2;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return index == 0 ? array : this.index;
+  }
+
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
     TextBuffer res = array.toJava(indent, tracer);
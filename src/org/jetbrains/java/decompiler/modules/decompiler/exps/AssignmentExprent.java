@@ -99,6 +99,16 @@ public class AssignmentExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return 2;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return index == 0 ? left : right;
+  }
+
   @Override
   public Exprent copy() {
     return new AssignmentExprent(left.copy(), right.copy(), bytecode);
@@ -111,6 +111,16 @@ public class ConstExprent extends Exprent {
     return new ArrayList<Exprent>();
   }
 
+  @Override
+  public int getExprentCount() {
+    return 0;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    throw new IndexOutOfBoundsException(String.valueOf(index));
+  }
+
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
     boolean literal = DecompilerContext.getOption(IFernflowerPreferences.LITERALS_AS_IS);
@@ -261,10 +271,10 @@ public class ConstExprent extends Exprent {
 
             VarType classtype;
             if (strval.startsWith("[")) { // array of simple type
-              classtype = new VarType(strval, false);
+              classtype = VarType.fromSignature(strval, false);
             }
             else { // class
-              classtype = new VarType(strval, true);
+              classtype = VarType.fromSignature(strval, true);
             }
 
             return new TextBuffer(ExprProcessor.getCastTypeName(classtype)).append(".class");
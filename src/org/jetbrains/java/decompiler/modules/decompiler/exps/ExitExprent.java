@@ -78,6 +78,16 @@ public class ExitExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return value == null ? 0 : 1;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return value;
+  }
+
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
     tracer.addMapping(bytecode);
@@ -120,7 +130,7 @@ public class ExitExprent extends Exprent {
           }
 
           if (classname != null) {
-            VarType exType = new VarType(classname, true);
+            VarType exType = VarType.fromSignature(classname, true);
             TextBuffer buffer = new TextBuffer();
             ExprProcessor.getCastedExprent(value, exType, buffer, indent, false, tracer);
             return buffer.prepend("throw ");
@@ -86,17 +86,13 @@ public abstract class Exprent implements IMatchable {
     return new CheckTypesResult();
   }
 
-  public boolean containsExprent(Exprent exprent) {
-    List<Exprent> listTemp = new ArrayList<Exprent>(getAllExprents(true));
-    listTemp.add(this);
-
-    for (Exprent lstExpr : listTemp) {
-      if (lstExpr.equals(exprent)) {
-        return true;
+  public boolean containsExprent(final Exprent exprent) {
+    return !visitPreOrder(new ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+        return expr.equals(exprent) ? VISIT_CANCEL : VISIT_CONTINUE;
       }
-    }
-
-    return false;
+    });
   }
 
   public List<Exprent> getAllExprents(boolean recursive) {
@@ -110,15 +106,16 @@ public abstract class Exprent implements IMatchable {
   }
 
   public Set<VarVersionPair> getAllVariables() {
-    List<Exprent> lstAllExprents = getAllExprents(true);
-    lstAllExprents.add(this);
-
-    Set<VarVersionPair> set = new HashSet<VarVersionPair>();
-    for (Exprent expr : lstAllExprents) {
-      if (expr.type == EXPRENT_VAR) {
-        set.add(new VarVersionPair((VarExprent)expr));
+    final Set<VarVersionPair> set = new HashSet<VarVersionPair>();
+    visitPreOrder(new ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+        if (expr.type == EXPRENT_VAR) {
+          set.add(new VarVersionPair((VarExprent)expr));
+        }
+        return VISIT_CONTINUE;
       }
-    }
+    });
     return set;
   }
 
@@ -126,6 +123,61 @@ public abstract class Exprent implements IMatchable {
     throw new RuntimeException("not implemented");
   }
 
+  // number of direct subexpressions, same as getAllExprents().size()
+  public int getExprentCount() {
+    return getAllExprents().size();
+  }
+
+  // direct subexpression at the given position, same as getAllExprents().get(index)
+  public Exprent getExprent(int index) {
+    return getAllExprents().get(index);
+  }
+
+  // *****************************************************************************
+  // In-place traversal
+  // *****************************************************************************
+
+  public static final int VISIT_CONTINUE = 0;
+  public static final int VISIT_CANCEL = 1;
+
+  public interface ExprentVisitor {
+    // VISIT_CONTINUE - go on with the traversal
+    // VISIT_CANCEL - stop the traversal
+    int visit(Exprent exprent);
+  }
+
+  /**
+   * Visits this exprent and all its subexpressions, parents before children, without building
+   * intermediate lists. Returns false if the visitor cancelled the traversal.
+   */
+  public boolean visitPreOrder(ExprentVisitor visitor) {
+    if (visitor.visit(this) == VISIT_CANCEL) {
+      return false;
+    }
+
+    for (int i = 0, count = getExprentCount(); i < count; i++) {
+      if (!getExprent(i).visitPreOrder(visitor)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Visits all subexpressions of this exprent and then the exprent itself, children before parents.
+   * Returns false if the visitor cancelled the traversal.
+   */
+  public boolean visitPostOrder(ExprentVisitor visitor) {
+    for (int i = 0, count = getExprentCount(); i < count; i++) {
+      if (!getExprent(i).visitPostOrder(visitor)) {
+        return false;
+      }
+    }
+
+    return visitor.visit(this) != VISIT_CANCEL;
+  }
+
   public Exprent copy() {
     throw new RuntimeException("not implemented");
   }
@@ -95,6 +95,16 @@ public class FieldExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return instance == null ? 0 : 1;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return instance;
+  }
+
   @Override
   public Exprent copy() {
     return new FieldExprent(name, classname, isStatic, instance == null ? null : instance.copy(), descriptor, bytecode);
@@ -136,7 +146,7 @@ public class FieldExprent extends Exprent {
       }
       else {
         TextBuffer buff = new TextBuffer();
-        boolean casted = ExprProcessor.getCastedExprent(instance, new VarType(CodeConstants.TYPE_OBJECT, 0, classname), buff, indent, true, tracer);
+        boolean casted = ExprProcessor.getCastedExprent(instance, VarType.of(CodeConstants.TYPE_OBJECT, 0, classname), buff, indent, true, tracer);
         String res = buff.toString();
 
         if (casted || instance.getPrecedence() > getPrecedence()) {
@@ -418,6 +418,16 @@ public class FunctionExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return lstOperands.size();
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return lstOperands.get(index);
+  }
+
   @Override
   public Exprent copy() {
     List<Exprent> lst = new ArrayList<Exprent>();
@@ -112,6 +112,16 @@ public class IfExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return 1;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return condition;
+  }
+
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
     tracer.addMapping(bytecode);
@@ -241,6 +241,16 @@ public class InvocationExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return instance == null ? lstParameters.size() : lstParameters.size() + 1;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return instance == null ? lstParameters.get(index) : index == 0 ? instance : lstParameters.get(index - 1);
+  }
+
 
   @Override
   public Exprent copy() {
@@ -307,7 +317,7 @@ public class InvocationExprent extends Exprent {
           TextBuffer res = instance.toJava(indent, tracer);
 
           VarType rightType = instance.getExprType();
-          VarType leftType = new VarType(CodeConstants.TYPE_OBJECT, 0, classname);
+          VarType leftType = VarType.of(CodeConstants.TYPE_OBJECT, 0, classname);
 
           if (rightType.equals(VarType.VARTYPE_OBJECT) && !leftType.equals(rightType)) {
             buf.append("((").append(ExprProcessor.getCastTypeName(leftType)).append(")");
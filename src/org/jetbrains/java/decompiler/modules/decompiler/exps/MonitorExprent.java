@@ -51,6 +51,16 @@ public class MonitorExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    return 1;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    return value;
+  }
+
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
     tracer.addMapping(bytecode);
@@ -141,6 +141,22 @@ public class NewExprent extends Exprent {
     return lst;
   }
 
+  @Override
+  public int getExprentCount() {
+    if (newType.arrayDim == 0) {
+      return constructor == null ? 0 : constructor.getExprentCount();
+    }
+    return lstDims.size() + lstArrayElements.size();
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    if (newType.arrayDim == 0) {
+      return constructor.getExprent(index);
+    }
+    return index < lstDims.size() ? lstDims.get(index) : lstArrayElements.get(index - lstDims.size());
+  }
+
   @Override
   public Exprent copy() {
     List<Exprent> lst = new ArrayList<Exprent>();
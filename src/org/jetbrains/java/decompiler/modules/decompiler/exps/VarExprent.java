@@ -90,6 +90,16 @@ public class VarExprent extends Exprent {
     return new ArrayList<Exprent>();
   }
 
+  @Override
+  public int getExprentCount() {
+    return 0;
+  }
+
+  @Override
+  public Exprent getExprent(int index) {
+    throw new IndexOutOfBoundsException(String.valueOf(index));
+  }
+
   @Override
   public Exprent copy() {
     VarExprent var = new VarExprent(index, getVarType(), processor);
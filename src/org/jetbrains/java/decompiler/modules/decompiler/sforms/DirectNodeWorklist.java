@@ -0,0 +1,159 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.sforms;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.collectors.WorkBudget;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
+
+import java.util.*;
+
+/**
+ * Visiting order for the propagation of variable versions over a direct graph. Nodes are visited in passes
+ * in the order of {@link DirectGraph#nodes}, just like full sweeps over the graph, but after the first pass
+ * a node is only visited again when a map it reads has changed since its last visit.
+ */
+public class DirectNodeWorklist {
+
+  private final DirectGraph dgraph;
+
+  // node -> nodes reading its out maps
+  private final int[][] outReaders;
+
+  // node -> nodes reading its in map (via finally exits)
+  private final int[][] inReaders;
+
+  private final BitSet pending = new BitSet();
+
+  private final WorkBudget budget = DecompilerContext.getWorkBudget();
+
+  private int position;
+
+  private int pass;
+
+  public DirectNodeWorklist(DirectGraph dgraph, boolean inMapsRead) {
+    this.dgraph = dgraph;
+
+    int size = dgraph.nodes.size();
+
+    List<Set<Integer>> lstOutReaders = new ArrayList<Set<Integer>>(size);
+    List<Set<Integer>> lstInReaders = new ArrayList<Set<Integer>>(size);
+    for (int i = 0; i < size; i++) {
+      lstOutReaders.add(new LinkedHashSet<Integer>());
+      lstInReaders.add(new LinkedHashSet<Integer>());
+    }
+
+    for (int i = 0; i < size; i++) {
+      DirectNode node = dgraph.nodes.get(i);
+
+      for (DirectNode pred : node.preds) {
+        addReader(lstOutReaders, pred.id, i);
+        addFinallyReaders(lstOutReaders, inMapsRead ? lstInReaders : null, node.id, pred.id, i, new HashSet<String>());
+      }
+    }
+
+    outReaders = toArrays(lstOutReaders);
+    inReaders = toArrays(lstInReaders);
+
+    pending.set(0, size);
+    position = size;
+  }
+
+  // mirrors the maps read by getFilteredOutMap() of the SSA constructors
+  private void addFinallyReaders(List<Set<Integer>> lstOutReaders, List<Set<Integer>> lstInReaders,
+                                 String nodeid, String predid, int reader, Set<String> setVisited) {
+
+    List<FinallyPathWrapper> lst = dgraph.mapShortRangeFinallyPaths.get(predid);
+    if (lst == null || !setVisited.add(nodeid + "##" + predid)) {
+      return;
+    }
+
+    if (lstInReaders != null) {
+      addReader(lstInReaders, nodeid, reader);
+    }
+
+    for (FinallyPathWrapper finwrap : lst) {
+      addReader(lstOutReaders, finwrap.source, reader);
+      addFinallyReaders(lstOutReaders, lstInReaders, finwrap.entry, finwrap.source, reader, setVisited);
+    }
+  }
+
+  private void addReader(List<Set<Integer>> lstReaders, String id, int reader) {
+    if (dgraph.nodes.containsKey(id)) {
+      lstReaders.get(dgraph.nodes.getIndexByKey(id)).add(reader);
+    }
+  }
+
+  private static int[][] toArrays(List<Set<Integer>> lst) {
+    int[][] res = new int[lst.size()][];
+    for (int i = 0; i < res.length; i++) {
+      Set<Integer> set = lst.get(i);
+      res[i] = new int[set.size()];
+      int j = 0;
+      for (Integer index : set) {
+        res[i][j++] = index;
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Returns the index of the next node to visit, -1 if no node is pending anymore.
+   */
+  public int next() {
+    int index = pending.nextSetBit(position);
+    if (index < 0) {
+      index = pending.nextSetBit(0);
+      if (index < 0) {
+        return -1;
+      }
+      pass++;
+    }
+
+    pending.clear(index);
+    position = index + 1;
+    budget.charge(1);
+
+    return index;
+  }
+
+  public DirectNode getNode(int index) {
+    return dgraph.nodes.get(index);
+  }
+
+  public void outMapsChanged(int index) {
+    setPending(outReaders[index]);
+  }
+
+  public boolean isInMapRead(int index) {
+    return inReaders[index].length > 0;
+  }
+
+  public void inMapChanged(int index) {
+    setPending(inReaders[index]);
+  }
+
+  private void setPending(int[] nodes) {
+    for (int index : nodes) {
+      pending.set(index);
+    }
+  }
+
+  // 1-based number of the current pass
+  public int getPass() {
+    return pass;
+  }
+}
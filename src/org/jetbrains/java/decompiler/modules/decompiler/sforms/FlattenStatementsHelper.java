@@ -491,6 +491,10 @@ public class FlattenStatementsHelper {
     }
   }
 
+  public DirectGraph getDirectGraph() {
+    return graph;
+  }
+
   public Map<Integer, String[]> getMapDestinationNodes() {
     return mapDestinationNodes;
   }
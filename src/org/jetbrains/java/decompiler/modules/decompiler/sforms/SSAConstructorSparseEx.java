@@ -44,6 +44,9 @@ public class SSAConstructorSparseEx {
   // node id, var, version
   private final HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<String, SFormsFastMapDirect>();
 
+  // node id, var, version (in maps as of the last change, for nodes read back by finally exits)
+  private final HashMap<String, SFormsFastMapDirect> lastInVarVersions = new HashMap<String, SFormsFastMapDirect>();
+
   // node id, var, version (direct branch)
   private final HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<String, SFormsFastMapDirect>();
 
@@ -65,10 +68,13 @@ public class SSAConstructorSparseEx {
   // set factory
   private FastSparseSetFactory<Integer> factory;
 
+  // set when a phi node of the currently processed node has been extended
+  private boolean phiUpdated;
+
   public void splitVariables(RootStatement root, StructMethod mt) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    FlattenStatementsHelper flatthelper = root.getFlattenHelper();
+    DirectGraph dgraph = flatthelper.getDirectGraph();
 
     org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssaSplitVariables");
 
@@ -83,64 +89,67 @@ public class SSAConstructorSparseEx {
 
     setCatchMaps(root, dgraph, flatthelper);
 
-    int itteration = 1;
-    HashSet<String> updated = new HashSet<String>();
-    do {
-      // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-      ssaStatements(dgraph, updated, mt, itteration++);
-      // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-    }
-    while (!updated.isEmpty());
-  }
+    DirectNodeWorklist worklist = new DirectNodeWorklist(dgraph, true);
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, StructMethod mt, int itteration) {
+    int pass = 0;
+    int index;
+    while ((index = worklist.next()) >= 0) {
+      if (worklist.getPass() != pass) {
+        pass = worklist.getPass();
+        org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssaStatements_" + pass, outVarVersions);
+      }
 
-    org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssaStatements_" + itteration, outVarVersions);
+      DirectNode node = worklist.getNode(index);
 
-    for (DirectNode node : dgraph.nodes) {
+      if (ssaStatement(node, dgraph)) {
+        worklist.outMapsChanged(index);
+      }
 
-      //			if (node.id.endsWith("_inc")) {
-      //				System.out.println();
-      //
-      //				try {
-      //					DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr1_my.dot"));
-      //				} catch (Exception ex) {
-      //					ex.printStackTrace();
-      //				}
-      //			}
+      // the in map is read back for finally exits
+      if (worklist.isInMapRead(index)) {
+        SFormsFastMapDirect inMap = inVarVersions.get(node.id);
+        if (!mapsEqual(inMap, lastInVarVersions.get(node.id))) {
+          lastInVarVersions.put(node.id, inMap.getCopy());
+          worklist.inMapChanged(index);
+        }
+      }
+    }
+  }
 
-      updated.remove(node.id);
-      mergeInVarMaps(node, dgraph);
+  // returns true if the out maps of the node have changed
+  private boolean ssaStatement(DirectNode node, DirectGraph dgraph) {
 
-      SFormsFastMapDirect varmap = inVarVersions.get(node.id);
-      varmap = new SFormsFastMapDirect(varmap);
+    mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
+    phiUpdated = false;
 
-      if (node.exprents != null) {
-        for (Exprent expr : node.exprents) {
-          processExprent(expr, varmaparr);
-        }
-      }
+    SFormsFastMapDirect varmap = inVarVersions.get(node.id);
+    varmap = new SFormsFastMapDirect(varmap);
+
+    SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
 
-      if (varmaparr[1] == null) {
-        varmaparr[1] = varmaparr[0];
+    if (node.exprents != null) {
+      for (Exprent expr : node.exprents) {
+        processExprent(expr, varmaparr);
       }
+    }
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+    if (varmaparr[1] == null) {
+      varmaparr[1] = varmaparr[0];
+    }
 
-      if (this_updated) {
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
-        }
+    boolean this_updated = phiUpdated
+                           || !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
+                           || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
 
-        for (DirectNode nd : node.succs) {
-          updated.add(nd.id);
-        }
+    if (this_updated) {
+      outVarVersions.put(node.id, varmaparr[0]);
+      if (dgraph.mapNegIfBranch.containsKey(node.id)) {
+        outNegVarVersions.put(node.id, varmaparr[1]);
       }
     }
+
+    return this_updated;
   }
 
   private void processExprent(Exprent expr, SFormsFastMapDirect[] varmaparr) {
@@ -267,7 +276,12 @@ public class SSAConstructorSparseEx {
         if (current_vers != 0 && phi.containsKey(currpaar)) {
           setCurrentVar(varmap, varindex, current_vers);
           // update phi node
-          phi.get(currpaar).union(vers);
+          FastSparseSet<Integer> phiVersions = phi.get(currpaar);
+          if (!phiVersions.contains(vers)) {
+            // the phi set is shared with the maps stored for this node, they change in place
+            phiVersions.union(vers);
+            phiUpdated = true;
+          }
         }
         else {
           // increase version
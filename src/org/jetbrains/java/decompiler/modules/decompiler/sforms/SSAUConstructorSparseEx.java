@@ -85,8 +85,8 @@ public class SSAUConstructorSparseEx {
 
   public void splitVariables(RootStatement root, StructMethod mt) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    FlattenStatementsHelper flatthelper = root.getFlattenHelper();
+    DirectGraph dgraph = flatthelper.getDirectGraph();
 
     List<Integer> setInit = new ArrayList<Integer>();
     org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssauSplitVariables");
@@ -100,68 +100,69 @@ public class SSAUConstructorSparseEx {
     setCatchMaps(root, dgraph, flatthelper);
 
 
-    int itteration = 1;
-    HashSet<String> updated = new HashSet<String>();
-    do {
-      //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-      ssaStatements(dgraph, updated, false, mt, itteration++);
-      //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-    }
-    while (!updated.isEmpty());
+    DirectNodeWorklist worklist = new DirectNodeWorklist(dgraph, false);
+
+    int pass = 0;
+    int index;
+    while ((index = worklist.next()) >= 0) {
+      if (worklist.getPass() != pass) {
+        pass = worklist.getPass();
+        org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssauStatements_" + pass);
+      }
 
+      if (ssaStatement(worklist.getNode(index), dgraph, false)) {
+        worklist.outMapsChanged(index);
+      }
+    }
 
-    ssaStatements(dgraph, updated, true, mt, itteration);
+    // live variables are calculated in one more full sweep
+    for (DirectNode node : dgraph.nodes) {
+      ssaStatement(node, dgraph, true);
+    }
 
     ssuversions.initDominators();
   }
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, boolean calcLiveVars, StructMethod mt, int itteration) {
-
-    org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssauStatements_" + itteration);
-
-    for (DirectNode node : dgraph.nodes) {
-
-      updated.remove(node.id);
-      mergeInVarMaps(node, dgraph);
+  // returns true if the out maps of the node have changed
+  private boolean ssaStatement(DirectNode node, DirectGraph dgraph, boolean calcLiveVars) {
 
-      SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions.get(node.id));
+    mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
+    SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions.get(node.id));
 
-      if (node.exprents != null) {
-        for (Exprent expr : node.exprents) {
-          processExprent(expr, varmaparr, node.statement, calcLiveVars);
-        }
-      }
+    SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
 
-      if (varmaparr[1] == null) {
-        varmaparr[1] = varmaparr[0];
+    if (node.exprents != null) {
+      for (Exprent expr : node.exprents) {
+        processExprent(expr, varmaparr, node.statement, calcLiveVars);
       }
+    }
 
-      // quick solution: 'dummy' field variables should not cross basic block borders (otherwise problems e.g. with finally loops - usage without assignment in a loop)
-      // For the full solution consider adding a dummy assignment at the entry point of the method
-      boolean allow_field_propagation = node.succs.isEmpty() || (node.succs.size() == 1 && node.succs.get(0).preds.size() == 1);
+    if (varmaparr[1] == null) {
+      varmaparr[1] = varmaparr[0];
+    }
 
-      if (!allow_field_propagation && varmaparr[0] != null) {
-        varmaparr[0].removeAllFields();
-        varmaparr[1].removeAllFields();
-      }
+    // quick solution: 'dummy' field variables should not cross basic block borders (otherwise problems e.g. with finally loops - usage without assignment in a loop)
+    // For the full solution consider adding a dummy assignment at the entry point of the method
+    boolean allow_field_propagation = node.succs.isEmpty() || (node.succs.size() == 1 && node.succs.get(0).preds.size() == 1);
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+    if (!allow_field_propagation && varmaparr[0] != null) {
+      varmaparr[0].removeAllFields();
+      varmaparr[1].removeAllFields();
+    }
 
-      if (this_updated) {
+    boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
+                           || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
 
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
-        }
+    if (this_updated) {
 
-        for (DirectNode nd : node.succs) {
-          updated.add(nd.id);
-        }
+      outVarVersions.put(node.id, varmaparr[0]);
+      if (dgraph.mapNegIfBranch.containsKey(node.id)) {
+        outNegVarVersions.put(node.id, varmaparr[1]);
       }
     }
+
+    return this_updated;
   }
 
 
@@ -58,6 +58,7 @@ public class CatchAllStatement extends Statement {
     stats.addWithKey(head, head.id);
 
     this.handler = handler;
+    markModified();
     stats.addWithKey(handler, handler.id);
 
     List<StatEdge> lstSuccs = head.getSuccessorEdges(STATEDGE_DIRECT_ALL);
@@ -69,7 +70,7 @@ public class CatchAllStatement extends Statement {
     }
 
     vars.add(new VarExprent(DecompilerContext.getCounterContainer().getCounterAndIncrement(CounterContainer.VAR_COUNTER),
-                            new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/Throwable"),
+                            VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/Throwable"),
                             (VarProcessor)DecompilerContext.getProperty(DecompilerContext.CURRENT_VAR_PROCESSOR)));
   }
 
@@ -185,7 +186,7 @@ public class CatchAllStatement extends Statement {
     if (!this.vars.isEmpty()) {
       // FIXME: WTF??? vars?!
       vars.add(new VarExprent(DecompilerContext.getCounterContainer().getCounterAndIncrement(CounterContainer.VAR_COUNTER),
-                              new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/Throwable"),
+                              VarType.of(CodeConstants.TYPE_OBJECT, 0, "java/lang/Throwable"),
                               (VarProcessor)DecompilerContext.getProperty(DecompilerContext.CURRENT_VAR_PROCESSOR)));
     }
 
@@ -218,6 +219,7 @@ public class CatchAllStatement extends Statement {
 
   public void setFinally(boolean isFinally) {
     this.isFinally = isFinally;
+    markModified();
   }
 
 
@@ -228,6 +230,7 @@ public class CatchAllStatement extends Statement {
 
   public void setMonitor(VarExprent monitor) {
     this.monitor = monitor;
+    markModified();
   }
 
   public List<VarExprent> getVars() {
@@ -234,6 +234,7 @@ public class DoStatement extends Statement {
 
   public void setInitExprent(Exprent initExprent) {
     this.initExprent.set(0, initExprent);
+    markModified();
   }
 
   public int getLooptype() {
@@ -242,5 +243,6 @@ public class DoStatement extends Statement {
 
   public void setLooptype(int looptype) {
     this.looptype = looptype;
+    markModified();
   }
 }
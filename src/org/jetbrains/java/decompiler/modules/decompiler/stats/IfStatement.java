@@ -295,6 +295,7 @@ public class IfStatement extends Statement {
     }
 
     headexprent.set(0, ifexpr);
+    markModified();
   }
 
   public List<Object> getSequentialObjects() {
@@ -18,6 +18,8 @@ package org.jetbrains.java.decompiler.modules.decompiler.stats;
 import org.jetbrains.java.decompiler.main.TextBuffer;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.StartEndPair;
 
 
@@ -25,6 +27,13 @@ public class RootStatement extends Statement {
 
   private DummyExitStatement dummyExit;
 
+  // number of structural changes of the statement tree, see Statement.markModified()
+  private int modificationCount;
+
+  private FlattenStatementsHelper flattenHelper;
+
+  private int flattenModificationCount;
+
   public RootStatement(Statement head, DummyExitStatement dummyExit) {
 
     type = Statement.TYPE_ROOT;
@@ -46,6 +55,39 @@ public class RootStatement extends Statement {
 
   public void setDummyExit(DummyExitStatement dummyExit) {
     this.dummyExit = dummyExit;
+    modificationCount++;
+  }
+
+  public int getModificationCount() {
+    return modificationCount;
+  }
+
+  void incModificationCount() {
+    modificationCount++;
+  }
+
+  /**
+   * Returns the flattened statement tree. It is built anew only if the structure of the tree has changed
+   * since the last call, otherwise the graph and the helper are shared with the previous caller.
+   */
+  public FlattenStatementsHelper getFlattenHelper() {
+    if (flattenHelper == null || flattenModificationCount != modificationCount) {
+      FlattenStatementsHelper helper = new FlattenStatementsHelper();
+      helper.buildDirectGraph(this);
+
+      flattenHelper = helper;
+      flattenModificationCount = modificationCount;
+    }
+    return flattenHelper;
+  }
+
+  /**
+   * Returns the flattened statement tree, shared like {@link #getFlattenHelper()}. It is only valid as long as
+   * every structural change of the tree goes through {@link Statement#markModified()}: the setters, the edge
+   * operations and the children collections do so, direct changes of other fields have to call it.
+   */
+  public DirectGraph getDirectGraph() {
+    return getFlattenHelper().getDirectGraph();
   }
 
   @Override
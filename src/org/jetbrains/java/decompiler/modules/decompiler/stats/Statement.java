@@ -80,8 +80,8 @@ public class Statement implements IMatchable {
   private final Map<Integer, List<Statement>> mapSuccStates = new HashMap<Integer, List<Statement>>();
   private final Map<Integer, List<Statement>> mapPredStates = new HashMap<Integer, List<Statement>>();
 
-  // statement as graph
-  protected final VBStyleCollection<Statement, Integer> stats = new VBStyleCollection<Statement, Integer>();
+  // statement as graph, changes are reported by markModified()
+  protected final VBStyleCollection<Statement, Integer> stats = new Children();
 
   protected Statement parent;
 
@@ -220,6 +220,8 @@ public class Statement implements IMatchable {
 
 
     // adjust statement collection
+    markModified();
+
     for (Statement st : setNodes) {
       stats.removeWithKey(st.id);
     }
@@ -274,6 +276,8 @@ public class Statement implements IMatchable {
 
   private void addEdgeInternal(int direction, StatEdge edge) {
 
+    markModified();
+
     int type = edge.getType();
 
     int[] arrtypes;
@@ -306,6 +310,8 @@ public class Statement implements IMatchable {
 
   private void removeEdgeInternal(int direction, StatEdge edge) {
 
+    markModified();
+
     int type = edge.getType();
 
     int[] arrtypes;
@@ -541,6 +547,8 @@ public class Statement implements IMatchable {
       newstat.addSuccessor(edge);
     }
 
+    markModified();
+
     int statindex = stats.getIndexByKey(oldstat.id);
     stats.removeWithKey(oldstat.id);
     stats.addWithKeyAndIndex(statindex, newstat, newstat.id);
@@ -643,6 +651,8 @@ public class Statement implements IMatchable {
 
   public void changeEdgeNode(int direction, StatEdge edge, Statement value) {
 
+    markModified();
+
     Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
     Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
@@ -685,6 +695,8 @@ public class Statement implements IMatchable {
       throw new RuntimeException("Invalid edge type!");
     }
 
+    markModified();
+
     removeEdgeDirectInternal(direction, edge, oldtype);
     addEdgeDirectInternal(direction, edge, newtype);
 
@@ -770,6 +782,7 @@ public class Statement implements IMatchable {
 
   public void setFirst(Statement first) {
     this.first = first;
+    markModified();
   }
 
   public Statement getPost() {
@@ -835,6 +848,21 @@ public class Statement implements IMatchable {
 
   public void setParent(Statement parent) {
     this.parent = parent;
+    markModified();
+  }
+
+  /**
+   * Records a change of the structure of the tree this statement belongs to, i.e. of anything the flattened
+   * {@link org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph} is built from: children,
+   * edges, statement types or exprent lists. Changes of {@link #getStats()} are recorded by the collection itself.
+   * The exprent lists are shared with the graph, so only replacing a list or setting an exprent the graph
+   * tests for null (a head or loop init exprent) has to be recorded, editing their elements doesn't.
+   */
+  public void markModified() {
+    Statement top = getTopParent();
+    if (top.type == TYPE_ROOT) {
+      ((RootStatement)top).incModificationCount();
+    }
   }
 
   public Statement getTopParent() {
@@ -859,6 +887,7 @@ public class Statement implements IMatchable {
 
   public void setExprents(List<Exprent> exprents) {
     this.exprents = exprents;
+    markModified();
   }
 
   public boolean isCopied() {
@@ -874,6 +903,99 @@ public class Statement implements IMatchable {
     return String.format("{%d}:%d", type, id);
   }
 
+  // *****************************************************************************
+  // children
+  // *****************************************************************************
+
+  // marks the tree as modified on every change, so that callers may edit getStats() directly
+  private class Children extends VBStyleCollection<Statement, Integer> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean add(Statement element) {
+      markModified();
+      return super.add(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Statement> c) {
+      markModified();
+      return super.addAll(c);
+    }
+
+    @Override
+    public void addAllWithKey(Collection<Statement> elements, Collection<Integer> keys) {
+      markModified();
+      super.addAllWithKey(elements, keys);
+    }
+
+    @Override
+    public void addWithKey(Statement element, Integer key) {
+      markModified();
+      super.addWithKey(element, key);
+    }
+
+    @Override
+    public Statement putWithKey(Statement element, Integer key) {
+      markModified();
+      return super.putWithKey(element, key);
+    }
+
+    @Override
+    public void add(int index, Statement element) {
+      markModified();
+      super.add(index, element);
+    }
+
+    @Override
+    public void addWithKeyAndIndex(int index, Statement element, Integer key) {
+      markModified();
+      super.addWithKeyAndIndex(index, element, key);
+    }
+
+    @Override
+    public Statement set(int index, Statement element) {
+      markModified();
+      return super.set(index, element);
+    }
+
+    @Override
+    public void removeWithKey(Integer key) {
+      markModified();
+      super.removeWithKey(key);
+    }
+
+    @Override
+    public Statement remove(int index) {
+      markModified();
+      return super.remove(index);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+      markModified();
+      return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+      markModified();
+      return super.retainAll(c);
+    }
+
+    @Override
+    public void clear() {
+      markModified();
+      super.clear();
+    }
+
+    @Override
+    public void swap(int index1, int index2) {
+      markModified();
+      super.swap(index1, index2);
+    }
+  }
+
   // *****************************************************************************
   // IMatchable implementation
   // *****************************************************************************
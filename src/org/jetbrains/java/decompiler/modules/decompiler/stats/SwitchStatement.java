@@ -216,6 +216,7 @@ public class SwitchStatement extends Statement {
     swexpr.setCaseValues(caseValues);
 
     headexprent.set(0, swexpr);
+    markModified();
   }
 
   public List<Object> getSequentialObjects() {
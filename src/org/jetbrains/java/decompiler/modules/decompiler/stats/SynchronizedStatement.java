@@ -102,6 +102,7 @@ public class SynchronizedStatement extends Statement {
 
   public void initExprents() {
     headexprent.set(0, first.getExprents().remove(first.getExprents().size() - 1));
+    markModified();
   }
 
   public List<Object> getSequentialObjects() {
@@ -132,6 +133,7 @@ public class SynchronizedStatement extends Statement {
     SequenceHelper.destroyStatementContent(exc, true);
 
     stats.removeWithKey(exc.id);
+    markModified();
   }
 
   public Statement getSimpleCopy() {
@@ -84,7 +84,7 @@ public class LVTVariable implements Comparable<LVTVariable> {
   }
 
   public VarType getVarType() {
-    return new VarType(desc);
+    return VarType.fromSignature(desc);
   }
 
   public LVTVariable rename(String newName) {
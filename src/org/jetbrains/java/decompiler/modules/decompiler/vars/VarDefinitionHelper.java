@@ -200,12 +200,16 @@ public class VarDefinitionHelper {
           break;
         }
         else {
+          final int varindex = index;
           boolean foundvar = false;
-          for (Exprent exp : expr.getAllExprents(true)) {
-            if (exp.type == Exprent.EXPRENT_VAR && ((VarExprent)exp).getIndex() == index) {
-              foundvar = true;
-              break;
-            }
+          for (int i = 0, count = expr.getExprentCount(); i < count && !foundvar; i++) {
+            foundvar = !expr.getExprent(i).visitPreOrder(new Exprent.ExprentVisitor() {
+              @Override
+              public int visit(Exprent exp) {
+                return exp.type == Exprent.EXPRENT_VAR && ((VarExprent)exp).getIndex() == varindex
+                       ? Exprent.VISIT_CANCEL : Exprent.VISIT_CONTINUE;
+              }
+            });
           }
           if (foundvar) {
             break;
@@ -396,18 +400,19 @@ public class VarDefinitionHelper {
 
   private static List<VarExprent> getAllVars(List<Exprent> lst) {
 
-    List<VarExprent> res = new ArrayList<VarExprent>();
-    List<Exprent> listTemp = new ArrayList<Exprent>();
+    final List<VarExprent> res = new ArrayList<VarExprent>();
+    Exprent.ExprentVisitor visitor = new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent exprent) {
+        if (exprent.type == Exprent.EXPRENT_VAR) {
+          res.add((VarExprent)exprent);
+        }
+        return Exprent.VISIT_CONTINUE;
+      }
+    };
 
     for (Exprent expr : lst) {
-      listTemp.addAll(expr.getAllExprents(true));
-      listTemp.add(expr);
-    }
-
-    for (Exprent exprent : listTemp) {
-      if (exprent.type == Exprent.EXPRENT_VAR) {
-        res.add((VarExprent)exprent);
-      }
+      expr.visitPreOrder(visitor);
     }
 
     return res;
@@ -532,22 +537,23 @@ public class VarDefinitionHelper {
     }
   }
 
-  private void findTypes(Exprent exp, Map<VarVersionPair, VarInfo> types) {
-    List<Exprent> lst = exp.getAllExprents(true);
-    lst.add(exp);
-
-    for (Exprent exprent : lst) {
-      if (exprent.type == Exprent.EXPRENT_VAR) {
-        VarExprent var = (VarExprent)exprent;
-        VarVersionPair ver = new VarVersionPair(var);
-        if (var.isDefinition()) {
-          types.put(ver, new VarInfo(var.getLVT(), var.getVarType()));
-        }
-        else if (!types.containsKey(ver)) {
-          types.put(ver, new VarInfo(var.getLVT(), var.getVarType()));
+  private void findTypes(Exprent exp, final Map<VarVersionPair, VarInfo> types) {
+    exp.visitPreOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent exprent) {
+        if (exprent.type == Exprent.EXPRENT_VAR) {
+          VarExprent var = (VarExprent)exprent;
+          VarVersionPair ver = new VarVersionPair(var);
+          if (var.isDefinition()) {
+            types.put(ver, new VarInfo(var.getLVT(), var.getVarType()));
+          }
+          else if (!types.containsKey(ver)) {
+            types.put(ver, new VarInfo(var.getLVT(), var.getVarType()));
+          }
         }
+        return Exprent.VISIT_CONTINUE;
       }
-    }
+    });
   }
 
   private static class VarInfo {
@@ -599,25 +605,24 @@ public class VarDefinitionHelper {
     }
   }
 
-  private void applyTypes(Exprent exprent, Map<VarVersionPair, LVTVariable> types) {
+  private void applyTypes(Exprent exprent, final Map<VarVersionPair, LVTVariable> types) {
     if (exprent == null) {
       return;
     }
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    for (Exprent expr : lst) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        VarExprent var = (VarExprent)expr;
-        LVTVariable lvt = types.get(new VarVersionPair(var));
-        if (lvt != null) {
-          var.setLVT(lvt);
-        } else {
-          System.currentTimeMillis();
-          //System.out.println("null " + new VarVersionPair(var));
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          VarExprent var = (VarExprent)expr;
+          LVTVariable lvt = types.get(new VarVersionPair(var));
+          if (lvt != null) {
+            var.setLVT(lvt);
+          }
+          //else System.out.println("null " + new VarVersionPair(var));
         }
+        return Exprent.VISIT_CONTINUE;
       }
-    }
+    });
   }
 
   private VPPEntry mergeVars(Statement stat) {
@@ -852,63 +857,68 @@ public class VarDefinitionHelper {
     return success;
   }
 
-  private boolean remapVar(Exprent exprent, VarVersionPair from, VarVersionPair to) {
+  private boolean remapVar(Exprent exprent, final VarVersionPair from, final VarVersionPair to) {
     if (exprent == null) { // Sometimes there are null exprents?
       return false;
     }
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-    Map<VarVersionPair, VarType> mapExprentMinTypes = varproc.getVarVersions().getTypeProcessor().getMapExprentMinTypes();
-    Map<VarVersionPair, VarType> mapExprentMaxTypes = varproc.getVarVersions().getTypeProcessor().getMapExprentMaxTypes();
+    final Map<VarVersionPair, VarType> mapExprentMinTypes = varproc.getVarVersions().getTypeProcessor().getMapExprentMinTypes();
+    final Map<VarVersionPair, VarType> mapExprentMaxTypes = varproc.getVarVersions().getTypeProcessor().getMapExprentMaxTypes();
 
-    boolean remapped = false;
+    final boolean[] remapped = new boolean[1];
 
-    for (Exprent expr : lst) {
-      if (expr.type == Exprent.EXPRENT_ASSIGNMENT) {
-        AssignmentExprent ass = (AssignmentExprent)expr;
-        if (ass.getLeft().type == Exprent.EXPRENT_VAR && ass.getRight().type == Exprent.EXPRENT_CONST) {
-          VarVersionPair left = new VarVersionPair((VarExprent)ass.getLeft());
-          if (!left.equals(from) && !left.equals(to)) {
-            continue;
-          }
+    // post-order: every exprent is checked after its subexprents, so an assignment of a constant sees its variable
+    // already remapped and the min type of 'to' updated. The former getAllExprents(true) list only put the exprent
+    // itself last; nested exprents came before their own subexprents there.
+    exprent.visitPostOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent expr) {
+        if (expr.type == Exprent.EXPRENT_ASSIGNMENT) {
+          AssignmentExprent ass = (AssignmentExprent)expr;
+          if (ass.getLeft().type == Exprent.EXPRENT_VAR && ass.getRight().type == Exprent.EXPRENT_CONST) {
+            VarVersionPair left = new VarVersionPair((VarExprent)ass.getLeft());
+            if (!left.equals(from) && !left.equals(to)) {
+              return Exprent.VISIT_CONTINUE;
+            }
 
-          ConstExprent right = (ConstExprent)ass.getRight();
-          if (right.getConstType() == VarType.VARTYPE_NULL) {
-            continue;
+            ConstExprent right = (ConstExprent)ass.getRight();
+            if (right.getConstType() == VarType.VARTYPE_NULL) {
+              return Exprent.VISIT_CONTINUE;
+            }
+            VarType merged = getMergedType(mapExprentMinTypes.get(from), mapExprentMinTypes.get(to),
+                                           mapExprentMaxTypes.get(from), mapExprentMaxTypes.get(to));
+
+            if (merged == null) { // Types incompatible, do not merge
+              return Exprent.VISIT_CONTINUE;
+            }
+
+            right.setConstType(merged);
+          }
+        }
+        else if (expr.type == Exprent.EXPRENT_VAR) {
+          VarExprent var = (VarExprent)expr;
+          VarVersionPair old = new VarVersionPair(var);
+          if (!old.equals(from)) {
+            return Exprent.VISIT_CONTINUE;
           }
           VarType merged = getMergedType(mapExprentMinTypes.get(from), mapExprentMinTypes.get(to),
                                          mapExprentMaxTypes.get(from), mapExprentMaxTypes.get(to));
-
           if (merged == null) { // Types incompatible, do not merge
-            continue;
+            return Exprent.VISIT_CONTINUE;
           }
 
-          right.setConstType(merged);
-        }
-      }
-      else if (expr.type == Exprent.EXPRENT_VAR) {
-        VarExprent var = (VarExprent)expr;
-        VarVersionPair old = new VarVersionPair(var);
-        if (!old.equals(from)) {
-          continue;
-        }
-        VarType merged = getMergedType(mapExprentMinTypes.get(from), mapExprentMinTypes.get(to),
-                                       mapExprentMaxTypes.get(from), mapExprentMaxTypes.get(to));
-        if (merged == null) { // Types incompatible, do not merge
-          continue;
-        }
-
-        var.setIndex(to.var);
-        var.setVersion(to.version);
-        var.setVarType(merged);
-        if (var.isDefinition()) {
-          var.setDefinition(false);
+          var.setIndex(to.var);
+          var.setVersion(to.version);
+          var.setVarType(merged);
+          if (var.isDefinition()) {
+            var.setDefinition(false);
+          }
+          mapExprentMinTypes.put(to, merged);
+          remapped[0] = true;
         }
-        mapExprentMinTypes.put(to, merged);
-        remapped = true;
+        return Exprent.VISIT_CONTINUE;
       }
-    }
-    return remapped;
+    });
+    return remapped[0];
   }
 
   private VarType getMergedType(VarType firstMin, VarType secondMin, VarType firstMax, VarType secondMax) {
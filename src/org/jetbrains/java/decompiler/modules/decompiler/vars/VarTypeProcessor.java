@@ -28,6 +28,8 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -43,6 +45,9 @@ public class VarTypeProcessor {
   private final Map<VarVersionPair, VarType> mapExprentMaxTypes = new HashMap<VarVersionPair, VarType>();
   private final Map<VarVersionPair, Integer> mapFinalVars = new HashMap<VarVersionPair, Integer>();
 
+  // min types changed by the last exprent check
+  private final List<VarVersionPair> changedMinTypes = new ArrayList<VarVersionPair>();
+
   private void setInitVars(RootStatement root) {
     StructMethod mt = (StructMethod)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD);
 
@@ -52,7 +57,7 @@ public class VarTypeProcessor {
 
     if (thisVar) {
       StructClass cl = (StructClass)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS);
-      VarType clType = new VarType(CodeConstants.TYPE_OBJECT, 0, cl.qualifiedName);
+      VarType clType = VarType.of(CodeConstants.TYPE_OBJECT, 0, cl.qualifiedName);
       mapExprentMinTypes.put(new VarVersionPair(0, 1), clType);
       mapExprentMaxTypes.put(new VarVersionPair(0, 1), clType);
     }
@@ -95,45 +100,104 @@ public class VarTypeProcessor {
 
     resetExprentTypes(graph);
 
-    //noinspection StatementWithEmptyBody
-    while (!processVarTypes(graph)) ;
+    processVarTypes(graph);
   }
 
   private static void resetExprentTypes(DirectGraph graph) {
     graph.iterateExprents(new DirectGraph.ExprentIterator() {
       @Override
       public int processExprent(Exprent exprent) {
-        List<Exprent> lst = exprent.getAllExprents(true);
-        lst.add(exprent);
+        exprent.visitPreOrder(RESET_TYPES);
+        return 0;
+      }
+    });
+  }
+
+  private static final Exprent.ExprentVisitor RESET_TYPES = new Exprent.ExprentVisitor() {
+    @Override
+    public int visit(Exprent expr) {
+      if (expr.type == Exprent.EXPRENT_VAR) {
+        VarExprent ve = (VarExprent)expr;
+        if (ve.getLVT()!= null) {
+            ve.setVarType(ve.getLVT().getVarType());
+        } else {
+            ve.setVarType(VarType.VARTYPE_UNKNOWN);
+        }
+      }
+      else if (expr.type == Exprent.EXPRENT_CONST) {
+        ConstExprent constExpr = (ConstExprent)expr;
+        if (constExpr.getConstType().typeFamily == CodeConstants.TYPE_FAMILY_INTEGER) {
+          constExpr.setConstType(new ConstExprent(constExpr.getIntValue(), constExpr.isBoolPermitted(), null).getConstType());
+        }
+      }
+      return Exprent.VISIT_CONTINUE;
+    }
+  };
+
+  private void processVarTypes(DirectGraph graph) {
+    final List<Exprent> lstExprents = new ArrayList<Exprent>();
+    graph.iterateExprents(new DirectGraph.ExprentIterator() {
+      @Override
+      public int processExprent(Exprent exprent) {
+        lstExprents.add(exprent);
+        return 0;
+      }
+    });
+
+    // variable or constant -> indices of the exprents depending on its min type
+    final Map<VarVersionPair, List<Integer>> mapDependents = new HashMap<VarVersionPair, List<Integer>>();
+    for (int i = 0; i < lstExprents.size(); i++) {
+      final Integer dependent = i;
 
-        for (Exprent expr : lst) {
+      lstExprents.get(i).visitPreOrder(new Exprent.ExprentVisitor() {
+        @Override
+        public int visit(Exprent expr) {
+          VarVersionPair pair = null;
           if (expr.type == Exprent.EXPRENT_VAR) {
-            VarExprent ve = (VarExprent)expr;
-            if (ve.getLVT()!= null) {
-                ve.setVarType(ve.getLVT().getVarType());
-            } else {
-                ve.setVarType(VarType.VARTYPE_UNKNOWN);
-            }
+            pair = new VarVersionPair((VarExprent)expr);
           }
           else if (expr.type == Exprent.EXPRENT_CONST) {
-            ConstExprent constExpr = (ConstExprent)expr;
-            if (constExpr.getConstType().typeFamily == CodeConstants.TYPE_FAMILY_INTEGER) {
-              constExpr.setConstType(new ConstExprent(constExpr.getIntValue(), constExpr.isBoolPermitted(), null).getConstType());
+            pair = new VarVersionPair(((ConstExprent)expr).id, -1);
+          }
+
+          if (pair != null) {
+            List<Integer> lstDependents = mapDependents.get(pair);
+            if (lstDependents == null) {
+              mapDependents.put(pair, lstDependents = new ArrayList<Integer>());
+            }
+            if (lstDependents.isEmpty() || !lstDependents.get(lstDependents.size() - 1).equals(dependent)) {
+              lstDependents.add(dependent);
             }
           }
+          return Exprent.VISIT_CONTINUE;
         }
-        return 0;
+      });
+    }
+
+    // Exprents are checked in graph order. After a min type has changed, the first pending exprent is checked
+    // next, like in a new iteration over the whole graph, but only exprents depending on a changed type are pending.
+    BitSet pending = new BitSet();
+    pending.set(0, lstExprents.size());
+
+    int index;
+    while ((index = pending.nextSetBit(0)) >= 0) {
+      pending.clear(index);
+
+      changedMinTypes.clear();
+
+      if (!checkTypeExprent(lstExprents.get(index))) {
+        pending.set(index);
       }
-    });
-  }
 
-  private boolean processVarTypes(DirectGraph graph) {
-    return graph.iterateExprents(new DirectGraph.ExprentIterator() {
-      @Override
-      public int processExprent(Exprent exprent) {
-        return checkTypeExprent(exprent) ? 0 : 1;
+      for (VarVersionPair pair : changedMinTypes) {
+        List<Integer> lstDependents = mapDependents.get(pair);
+        if (lstDependents != null) {
+          for (Integer dependent : lstDependents) {
+            pending.set(dependent);
+          }
+        }
       }
-    });
+    }
   }
 
   private boolean checkTypeExprent(Exprent exprent) {
@@ -150,6 +214,7 @@ public class VarTypeProcessor {
         VarVersionPair pair = new VarVersionPair(constExpr.id, -1);
         if (!mapExprentMinTypes.containsKey(pair)) {
           mapExprentMinTypes.put(pair, constExpr.getConstType());
+          changedMinTypes.add(pair);
         }
       }
     }
@@ -212,12 +277,17 @@ public class VarTypeProcessor {
           }
 
           mapExprentMinTypes.put(pair, newMinType);
+          if (!newMinType.equals(currentMinType)) {
+            changedMinTypes.add(pair);
+          }
           if (exprent.type == Exprent.EXPRENT_CONST) {
             //noinspection ConstantConditions
             ((ConstExprent)exprent).setConstType(newMinType);
           }
 
-          if (currentMinType != null && (newMinType.typeFamily > currentMinType.typeFamily || newMinType.isStrictSuperset(currentMinType))) {
+          // an unchanged (shared) type instance cannot be a strict superset of itself
+          if (currentMinType != null && newMinType != currentMinType &&
+              (newMinType.typeFamily > currentMinType.typeFamily || newMinType.isStrictSuperset(currentMinType))) {
             return false;
           }
         }
@@ -18,6 +18,7 @@ package org.jetbrains.java.decompiler.struct;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader.Link;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
@@ -98,8 +99,17 @@ public class ContextUnit {
 
   public void reload(LazyLoader loader) throws IOException {
     List<StructClass> lstClasses = new ArrayList<StructClass>();
+    PoolInterceptor interceptor = DecompilerContext.getPoolInterceptor();
 
     for (StructClass cl : classes) {
+      // a class without renamed references would be read exactly as before. Pools of own classes are still
+      // in memory, checking the others would cost as much as reading them again.
+      if (interceptor != null && cl.isOwn() && !cl.isRenamedBy(interceptor)) {
+        cl.releaseResources();
+        lstClasses.add(cl);
+        continue;
+      }
+
       String oldName = cl.qualifiedName;
 
       StructClass newCl;
@@ -145,6 +155,10 @@ public class ContextUnit {
                 mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
               }
               resultSaver.saveClassFile(filename, cl.qualifiedName, entryName, content, mapping);
+              if (mapping != null && DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING_BINARY)) {
+                resultSaver.saveClassMapping(filename, null, cl.qualifiedName, getMappingEntryName(entryName),
+                                             DecompilerContext.getBytecodeSourceMapper().getBinaryMapping());
+              }
             }
           }
         }
@@ -176,6 +190,12 @@ public class ContextUnit {
           if (entryName != null) {
             String content = decompiledData.getClassContent(cl);
             resultSaver.saveClassEntry(archivePath, filename, cl.qualifiedName, entryName, content);
+            if (content != null &&
+                DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING) &&
+                DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING_BINARY)) {
+              resultSaver.saveClassMapping(archivePath, filename, cl.qualifiedName, getMappingEntryName(entryName),
+                                           DecompilerContext.getBytecodeSourceMapper().getBinaryMapping());
+            }
           }
         }
 
@@ -183,6 +203,10 @@ public class ContextUnit {
     }
   }
 
+  private static String getMappingEntryName(String entryName) {
+    return entryName + ".bsm";
+  }
+
   public void setManifest(Manifest manifest) {
     this.manifest = manifest;
   }
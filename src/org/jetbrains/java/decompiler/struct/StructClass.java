@@ -18,6 +18,7 @@ package org.jetbrains.java.decompiler.struct;
 import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.attr.StructGenericSignatureAttribute;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
@@ -120,7 +121,10 @@ public class StructClass extends StructMember {
     // attributes
     attributes = readAttributes(in, pool);
 
-    releaseResources();
+    // the pool of an own class is checked for renamed references before the context is reloaded
+    if (!own || !DecompilerContext.getOption(IFernflowerPreferences.RENAME_ENTITIES) || DecompilerContext.getPoolInterceptor() != null) {
+      releaseResources();
+    }
   }
 
   public boolean hasField(String name, String descriptor) {
@@ -149,6 +153,32 @@ public class StructClass extends StructMember {
     }
   }
 
+  /**
+   * Returns true if reading the class with the given interceptor in place would give a different result:
+   * a class or member it references or declares is renamed. Loads the pool if it has been released.
+   */
+  public boolean isRenamedBy(PoolInterceptor interceptor) {
+    ConstantPool pool = getPool();
+
+    if (pool.isRenamedBy(interceptor)) {
+      return true;
+    }
+
+    for (StructField fd : fields) {
+      if (pool.isClassElementRenamedBy(interceptor, ConstantPool.FIELD, qualifiedName, fd.getName(), fd.getDescriptor())) {
+        return true;
+      }
+    }
+
+    for (StructMethod mt : methods) {
+      if (pool.isClassElementRenamedBy(interceptor, ConstantPool.METHOD, qualifiedName, mt.getName(), mt.getDescriptor())) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   public ConstantPool getPool() {
     if (pool == null && loader != null) {
       pool = loader.loadPool(qualifiedName);
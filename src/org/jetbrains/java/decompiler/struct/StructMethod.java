@@ -29,6 +29,7 @@ import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.jetbrains.java.decompiler.code.CodeConstants.*;
@@ -48,6 +49,7 @@ public class StructMethod extends StructMember {
   private static final int[] opr_loadstore = {0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 3};
   private static final int[] opcs_load = {opc_iload, opc_lload, opc_fload, opc_dload, opc_aload};
   private static final int[] opcs_store = {opc_istore, opc_lstore, opc_fstore, opc_dstore, opc_astore};
+  private static final int[] NO_CONSTANTS = new int[0];
 
   private final StructClass classStruct;
   private final String name;
@@ -58,6 +60,9 @@ public class StructMethod extends StructMember {
   private int localVariables = 0;
   private int codeLength = 0;
   private int codeFullLength = 0;
+  private int[] invokeDynamicConstants = NO_CONSTANTS;
+  private InstructionStream stream;
+  private List<ExceptionHandler> exceptionHandlers;
   private InstructionSequence seq;
   private boolean expanded = false;
   private VBStyleCollection<StructGeneralAttribute, String> codeAttributes;
@@ -96,7 +101,14 @@ public class StructMethod extends StructMember {
         in.discard(6);
         localVariables = in.readUnsignedShort();
         codeLength = in.readInt();
-        in.discard(codeLength);
+        if (classStruct.isVersionGE_1_7() && codeLength >= 0 && codeLength <= 0xFFFF) {
+          byte[] code = new byte[codeLength];
+          in.readFully(code);
+          invokeDynamicConstants = findInvokeDynamicConstants(code);
+        }
+        else {
+          in.discard(codeLength);
+        }
         int excLength = in.readUnsignedShort();
         in.discard(excLength * 8);
         codeFullLength = codeLength + excLength * 8 + 2;
@@ -119,7 +131,9 @@ public class StructMethod extends StructMember {
   public void expandData() throws IOException {
     if (containsCode && !expanded) {
       byte[] code = classStruct.getLoader().loadBytecode(this, codeFullLength);
-      seq = parseBytecode(new DataInputFullStream(code), codeLength, classStruct.getPool());
+      DataInputFullStream in = new DataInputFullStream(code);
+      stream = parseBytecode(in, codeLength);
+      exceptionHandlers = parseExceptionTable(in, classStruct.getPool());
       loadRenamer();
       expanded = true;
     }
@@ -133,16 +147,19 @@ public class StructMethod extends StructMember {
 
   public void releaseResources() throws IOException {
     if (containsCode && expanded) {
+      stream = null;
+      exceptionHandlers = null;
       seq = null;
       expanded = false;
     }
   }
 
   @SuppressWarnings("AssignmentToForLoopParameter")
-  private InstructionSequence parseBytecode(DataInputFullStream in, int length, ConstantPool pool) throws IOException {
-    VBStyleCollection<Instruction, Integer> instructions = new VBStyleCollection<Instruction, Integer>();
+  private InstructionStream parseBytecode(DataInputFullStream in, int length) throws IOException {
+    InstructionStream instructions = new InstructionStream(classStruct.getBytecodeVersion(), length / 2);
 
-    int bytecode_version = classStruct.getBytecodeVersion();
+    // operands of the current instruction, reused across instructions and grown for switches
+    int[] operands = new int[4];
 
     for (int i = 0; i < length; ) {
 
@@ -158,29 +175,29 @@ public class StructMethod extends StructMember {
         opcode = in.readUnsignedByte();
       }
 
-      List<Integer> operands = new ArrayList<Integer>();
+      int count = 0;
 
       if (opcode >= opc_iconst_m1 && opcode <= opc_iconst_5) {
-        operands.add(new Integer(opr_iconst[opcode - opc_iconst_m1]));
+        operands[count++] = opr_iconst[opcode - opc_iconst_m1];
         opcode = opc_bipush;
       }
       else if (opcode >= opc_iload_0 && opcode <= opc_aload_3) {
-        operands.add(new Integer(opr_loadstore[opcode - opc_iload_0]));
+        operands[count++] = opr_loadstore[opcode - opc_iload_0];
         opcode = opcs_load[(opcode - opc_iload_0) / 4];
       }
       else if (opcode >= opc_istore_0 && opcode <= opc_astore_3) {
-        operands.add(new Integer(opr_loadstore[opcode - opc_istore_0]));
+        operands[count++] = opr_loadstore[opcode - opc_istore_0];
         opcode = opcs_store[(opcode - opc_istore_0) / 4];
       }
       else {
         switch (opcode) {
           case opc_bipush:
-            operands.add(new Integer(in.readByte()));
+            operands[count++] = in.readByte();
             i++;
             break;
           case opc_ldc:
           case opc_newarray:
-            operands.add(new Integer(in.readUnsignedByte()));
+            operands[count++] = in.readUnsignedByte();
             i++;
             break;
           case opc_sipush:
@@ -205,7 +222,7 @@ public class StructMethod extends StructMember {
             if (opcode != opc_sipush) {
               group = GROUP_JUMP;
             }
-            operands.add(new Integer(in.readShort()));
+            operands[count++] = in.readShort();
             i += 2;
             break;
           case opc_ldc_w:
@@ -221,7 +238,7 @@ public class StructMethod extends StructMember {
           case opc_anewarray:
           case opc_checkcast:
           case opc_instanceof:
-            operands.add(new Integer(in.readUnsignedShort()));
+            operands[count++] = in.readUnsignedShort();
             i += 2;
             if (opcode >= opc_getstatic && opcode <= opc_putfield) {
               group = GROUP_FIELDACCESS;
@@ -232,7 +249,7 @@ public class StructMethod extends StructMember {
             break;
           case opc_invokedynamic:
             if (classStruct.isVersionGE_1_7()) { // instruction unused in Java 6 and before
-              operands.add(new Integer(in.readUnsignedShort()));
+              operands[count++] = in.readUnsignedShort();
               in.discard(2);
               group = GROUP_INVOCATION;
               i += 4;
@@ -250,11 +267,11 @@ public class StructMethod extends StructMember {
           case opc_astore:
           case opc_ret:
             if (wide) {
-              operands.add(new Integer(in.readUnsignedShort()));
+              operands[count++] = in.readUnsignedShort();
               i += 2;
             }
             else {
-              operands.add(new Integer(in.readUnsignedByte()));
+              operands[count++] = in.readUnsignedByte();
               i++;
             }
             if (opcode == opc_ret) {
@@ -263,49 +280,50 @@ public class StructMethod extends StructMember {
             break;
           case opc_iinc:
             if (wide) {
-              operands.add(new Integer(in.readUnsignedShort()));
-              operands.add(new Integer(in.readShort()));
+              operands[count++] = in.readUnsignedShort();
+              operands[count++] = in.readShort();
               i += 4;
             }
             else {
-              operands.add(new Integer(in.readUnsignedByte()));
-              operands.add(new Integer(in.readByte()));
+              operands[count++] = in.readUnsignedByte();
+              operands[count++] = in.readByte();
               i += 2;
             }
             break;
           case opc_goto_w:
           case opc_jsr_w:
             opcode = opcode == opc_jsr_w ? opc_jsr : opc_goto;
-            operands.add(new Integer(in.readInt()));
+            operands[count++] = in.readInt();
             group = GROUP_JUMP;
             i += 4;
             break;
           case opc_invokeinterface:
-            operands.add(new Integer(in.readUnsignedShort()));
-            operands.add(new Integer(in.readUnsignedByte()));
+            operands[count++] = in.readUnsignedShort();
+            operands[count++] = in.readUnsignedByte();
             in.discard(1);
             group = GROUP_INVOCATION;
             i += 4;
             break;
           case opc_multianewarray:
-            operands.add(new Integer(in.readUnsignedShort()));
-            operands.add(new Integer(in.readUnsignedByte()));
+            operands[count++] = in.readUnsignedShort();
+            operands[count++] = in.readUnsignedByte();
             i += 3;
             break;
           case opc_tableswitch:
             in.discard((4 - (i + 1) % 4) % 4);
             i += ((4 - (i + 1) % 4) % 4); // padding
-            operands.add(new Integer(in.readInt()));
+            operands[count++] = in.readInt();
             i += 4;
             int low = in.readInt();
-            operands.add(new Integer(low));
+            operands[count++] = low;
             i += 4;
             int high = in.readInt();
-            operands.add(new Integer(high));
+            operands[count++] = high;
             i += 4;
+            operands = ensureCapacity(operands, count + high - low + 1);
 
             for (int j = 0; j < high - low + 1; j++) {
-              operands.add(new Integer(in.readInt()));
+              operands[count++] = in.readInt();
               i += 4;
             }
             group = GROUP_SWITCH;
@@ -314,16 +332,17 @@ public class StructMethod extends StructMember {
           case opc_lookupswitch:
             in.discard((4 - (i + 1) % 4) % 4);
             i += ((4 - (i + 1) % 4) % 4); // padding
-            operands.add(new Integer(in.readInt()));
+            operands[count++] = in.readInt();
             i += 4;
             int npairs = in.readInt();
-            operands.add(new Integer(npairs));
+            operands[count++] = npairs;
             i += 4;
+            operands = ensureCapacity(operands, count + 2 * npairs);
 
             for (int j = 0; j < npairs; j++) {
-              operands.add(new Integer(in.readInt()));
+              operands[count++] = in.readInt();
               i += 4;
-              operands.add(new Integer(in.readInt()));
+              operands[count++] = in.readInt();
               i += 4;
             }
             group = GROUP_SWITCH;
@@ -339,19 +358,115 @@ public class StructMethod extends StructMember {
         }
       }
 
-      int[] ops = new int[operands.size()];
-      for (int j = 0; j < operands.size(); j++) {
-        ops[j] = operands.get(j).intValue();
-      }
+      instructions.addInstruction(opcode, wide, group, offset, operands, count);
 
-      Instruction instr = ConstantsUtil.getInstructionInstance(opcode, wide, group, bytecode_version, ops);
+      i++;
+    }
 
-      instructions.addWithKey(instr, new Integer(offset));
+    return instructions;
+  }
 
-      i++;
+  // pool indices of the invokedynamic instructions in code order, found without building instructions.
+  // Malformed code yields no indices, it is reported when the instructions are built.
+  private static int[] findInvokeDynamicConstants(byte[] code) {
+    int[] indices = NO_CONSTANTS;
+    int count = 0;
+
+    for (int i = 0; i < code.length; ) {
+      int opcode = code[i] & 0xFF;
+
+      switch (opcode) {
+        case opc_invokedynamic:
+          if (i + 3 > code.length) {
+            return NO_CONSTANTS;
+          }
+          if (count == indices.length) {
+            indices = Arrays.copyOf(indices, Math.max(4, count * 2));
+          }
+          indices[count++] = readUnsignedShort(code, i + 1);
+          i += 5;
+          break;
+        case opc_wide:
+          if (i + 2 > code.length) {
+            return NO_CONSTANTS;
+          }
+          i += (code[i + 1] & 0xFF) == opc_iinc ? 6 : 4;
+          break;
+        case opc_tableswitch: {
+          int pos = (i + 4) & ~3; // padding
+          if (pos + 12 > code.length) {
+            return NO_CONSTANTS;
+          }
+          int low = readInt(code, pos + 4);
+          int high = readInt(code, pos + 8);
+          long next = pos + 12 + 4L * ((long)high - low + 1);
+          if (high < low || next > code.length) {
+            return NO_CONSTANTS;
+          }
+          i = (int)next;
+          break;
+        }
+        case opc_lookupswitch: {
+          int pos = (i + 4) & ~3;
+          if (pos + 8 > code.length) {
+            return NO_CONSTANTS;
+          }
+          long next = pos + 8 + 8L * readInt(code, pos + 4);
+          if (next < pos + 8 || next > code.length) {
+            return NO_CONSTANTS;
+          }
+          i = (int)next;
+          break;
+        }
+        case opc_bipush:
+        case opc_ldc:
+        case opc_iload:
+        case opc_lload:
+        case opc_fload:
+        case opc_dload:
+        case opc_aload:
+        case opc_istore:
+        case opc_lstore:
+        case opc_fstore:
+        case opc_dstore:
+        case opc_astore:
+        case opc_ret:
+        case opc_newarray:
+          i += 2;
+          break;
+        case opc_multianewarray:
+          i += 4;
+          break;
+        case opc_invokeinterface:
+        case opc_goto_w:
+        case opc_jsr_w:
+          i += 5;
+          break;
+        default:
+          if ((opcode >= opc_ifeq && opcode <= opc_jsr) || (opcode >= opc_getstatic && opcode <= opc_invokestatic) ||
+              opcode == opc_sipush || opcode == opc_ldc_w || opcode == opc_ldc2_w || opcode == opc_iinc ||
+              opcode == opc_new || opcode == opc_anewarray || opcode == opc_checkcast || opcode == opc_instanceof ||
+              opcode == opc_ifnull || opcode == opc_ifnonnull) {
+            i += 3;
+          }
+          else {
+            i++;
+          }
+      }
     }
 
-    // initialize exception table
+    return count == indices.length ? indices : Arrays.copyOf(indices, count);
+  }
+
+  private static int readUnsignedShort(byte[] code, int pos) {
+    return ((code[pos] & 0xFF) << 8) | (code[pos + 1] & 0xFF);
+  }
+
+  private static int readInt(byte[] code, int pos) {
+    return ((code[pos] & 0xFF) << 24) | ((code[pos + 1] & 0xFF) << 16) | ((code[pos + 2] & 0xFF) << 8) | (code[pos + 3] & 0xFF);
+  }
+
+  private static List<ExceptionHandler> parseExceptionTable(DataInputFullStream in, ConstantPool pool) throws IOException {
     List<ExceptionHandler> lstHandlers = new ArrayList<ExceptionHandler>();
 
     int exception_count = in.readUnsignedShort();
@@ -370,7 +485,16 @@ public class StructMethod extends StructMember {
       lstHandlers.add(handler);
     }
 
-    InstructionSequence seq = new FullInstructionSequence(instructions, new ExceptionTable(lstHandlers));
+    return lstHandlers;
+  }
+
+  private static InstructionSequence buildInstructionSequence(InstructionStream stream, List<ExceptionHandler> handlers) {
+    VBStyleCollection<Instruction, Integer> instructions = new VBStyleCollection<Instruction, Integer>();
+    for (int i = 0; i < stream.length(); i++) {
+      instructions.addWithKey(stream.getInstr(i), stream.getOffset(i));
+    }
+
+    InstructionSequence seq = new FullInstructionSequence(instructions, new ExceptionTable(handlers), stream);
 
     // initialize instructions
     int i = seq.length() - 1;
@@ -387,6 +511,10 @@ public class StructMethod extends StructMember {
     return seq;
   }
 
+  private static int[] ensureCapacity(int[] operands, int count) {
+    return count <= operands.length ? operands : Arrays.copyOf(operands, Math.max(count, operands.length * 2));
+  }
+
   public StructClass getClassStruct() {
     return classStruct;
   }
@@ -407,10 +535,22 @@ public class StructMethod extends StructMember {
     return localVariables;
   }
 
+  // instruction objects are created on the first call after expandData()
   public InstructionSequence getInstructionSequence() {
+    if (seq == null && stream != null) {
+      seq = buildInstructionSequence(stream, exceptionHandlers);
+    }
     return seq;
   }
 
+  /**
+   * Constant pool indices of the invokedynamic instructions of the method in code order, available without
+   * expanding the method. Always empty for class versions before 1.7.
+   */
+  public int[] getInvokeDynamicConstants() {
+    return invokeDynamicConstants;
+  }
+
   public GenericMethodDescriptor getSignature() {
     return signature;
   }
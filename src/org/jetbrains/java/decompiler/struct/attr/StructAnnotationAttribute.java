@@ -70,7 +70,7 @@ public class StructAnnotationAttribute extends StructGeneralAttribute {
       values = Collections.emptyList();
     }
 
-    return new AnnotationExprent(new VarType(className).value, names, values);
+    return new AnnotationExprent(VarType.fromSignature(className).value, names, values);
   }
 
   public static Exprent parseAnnotationElement(DataInputStream data, ConstantPool pool) throws IOException {
@@ -136,11 +136,11 @@ public class StructAnnotationAttribute extends StructGeneralAttribute {
 
         VarType newType;
         if (elements.isEmpty()) {
-          newType = new VarType(CodeConstants.TYPE_OBJECT, 1, "java/lang/Object");
+          newType = VarType.of(CodeConstants.TYPE_OBJECT, 1, "java/lang/Object");
         }
         else {
           VarType elementType = elements.get(0).getExprType();
-          newType = new VarType(elementType.type, 1, elementType.value);
+          newType = VarType.of(elementType.type, 1, elementType.value);
         }
 
         NewExprent newExpr = new NewExprent(newType, Collections.<Exprent>emptyList(), null);
@@ -34,11 +34,17 @@ public class ConstantPool implements NewClassNameBuilder {
   public static final int FIELD = 1;
   public static final int METHOD = 2;
 
-  private final List<PooledConstant> pool = new ArrayList<PooledConstant>();
+  private final List<PooledConstant> pool;
   private final PoolInterceptor interceptor;
 
+  private ConstantPool(List<PooledConstant> pool, PoolInterceptor interceptor) {
+    this.pool = pool;
+    this.interceptor = interceptor;
+  }
 
   public ConstantPool(DataInputStream in) throws IOException {
+    pool = new ArrayList<PooledConstant>();
+
     int size = in.readUnsignedShort();
     int[] pass = new int[size];
 
@@ -164,6 +170,33 @@ public class ConstantPool implements NewClassNameBuilder {
     return new String[]{elementName, descriptor};
   }
 
+  /**
+   * Returns true if some class or member reference of this pool reads differently through the given interceptor.
+   */
+  public boolean isRenamedBy(PoolInterceptor interceptor) {
+    ConstantPool renamed = new ConstantPool(pool, interceptor);
+
+    for (int i = 1; i < pool.size(); i++) {
+      PooledConstant cn = pool.get(i);
+      if (cn instanceof PrimitiveConstant && renamed.getPrimitiveConstant(i) != cn ||
+          cn instanceof LinkConstant && renamed.getLinkConstant(i) != cn) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns true if the given interceptor renames a field or method declared by the given class, see
+   * {@link #getClassElement(int, String, int, int)}.
+   */
+  public boolean isClassElementRenamedBy(PoolInterceptor interceptor, int elementType, String className,
+                                         String elementName, String descriptor) {
+    return interceptor.getName(className + " " + elementName + " " + descriptor) != null ||
+           new ConstantPool(pool, interceptor).buildNewDescriptor(elementType == FIELD, descriptor) != null;
+  }
+
   public PooledConstant getConstant(int index) {
     return pool.get(index);
   }
@@ -207,7 +240,7 @@ public class ConstantPool implements NewClassNameBuilder {
 
   @Override
   public String buildNewClassname(String className) {
-    VarType vt = new VarType(className, true);
+    VarType vt = VarType.fromSignature(className, true);
 
     String newName = interceptor.getName(vt.value);
     if (newName != null) {
@@ -32,7 +32,7 @@ public class DataPoint {
   public void setVariable(int index, VarType value) {
     if (index >= localVariables.size()) {
       for (int i = localVariables.size(); i <= index; i++) {
-        localVariables.add(new VarType(CodeConstants.TYPE_NOTINITIALIZED));
+        localVariables.add(VarType.of(CodeConstants.TYPE_NOTINITIALIZED));
       }
     }
 
@@ -47,7 +47,7 @@ public class DataPoint {
       throw new IndexOutOfBoundsException();
     }
     else {
-      return new VarType(CodeConstants.TYPE_NOTINITIALIZED);
+      return VarType.of(CodeConstants.TYPE_NOTINITIALIZED);
     }
   }
 
@@ -66,7 +66,7 @@ public class DataPoint {
 
     int k = 0;
     if (!mt.hasModifier(CodeConstants.ACC_STATIC)) {
-      point.setVariable(k++, new VarType(CodeConstants.TYPE_OBJECT, 0, null));
+      point.setVariable(k++, VarType.of(CodeConstants.TYPE_OBJECT, 0, null));
     }
 
     for (int i = 0; i < md.params.length; i++) {
@@ -74,7 +74,7 @@ public class DataPoint {
 
       point.setVariable(k++, var);
       if (var.stackSize == 2) {
-        point.setVariable(k++, new VarType(CodeConstants.TYPE_GROUP2EMPTY));
+        point.setVariable(k++, VarType.of(CodeConstants.TYPE_GROUP2EMPTY));
       }
     }
 
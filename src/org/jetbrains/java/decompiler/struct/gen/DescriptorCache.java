@@ -0,0 +1,118 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct.gen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.struct.gen.generics.GenericClassDescriptor;
+import org.jetbrains.java.decompiler.struct.gen.generics.GenericFieldDescriptor;
+import org.jetbrains.java.decompiler.struct.gen.generics.GenericMethodDescriptor;
+
+/**
+ * Parsed descriptors and generic signatures of one decompiler context, keyed by their source string,
+ * and the shared {@link VarType} instances of the context. The cached objects are shared between all users
+ * and must not be modified.
+ */
+public class DescriptorCache {
+
+  // a table is dropped as a whole when it reaches this size
+  public static final int MAX_ENTRIES = 1 << 16;
+
+  public final Table<MethodDescriptor> methodDescriptors = new Table<MethodDescriptor>();
+  public final Table<FieldDescriptor> fieldDescriptors = new Table<FieldDescriptor>();
+  public final Table<GenericClassDescriptor> classSignatures = new Table<GenericClassDescriptor>();
+  public final Table<GenericMethodDescriptor> methodSignatures = new Table<GenericMethodDescriptor>();
+  public final Table<GenericFieldDescriptor> fieldSignatures = new Table<GenericFieldDescriptor>();
+  public final Table<VarType> typeSignatures = new Table<VarType>();
+  public final Table<VarType> classTypeSignatures = new Table<VarType>();
+
+  // shared types: type -> value -> array dimension, new values are not shared any more when a table is full
+  private final List<ConcurrentHashMap<String, VarType[]>> types = new ArrayList<ConcurrentHashMap<String, VarType[]>>();
+
+  public DescriptorCache() {
+    for (int i = 0; i < CodeConstants.TYPE_GENVAR; i++) {
+      types.add(new ConcurrentHashMap<String, VarType[]>());
+    }
+
+    for (VarType constant : VarType.CONSTANTS) {
+      ConcurrentHashMap<String, VarType[]> byValue = types.get(constant.type);
+      String key = VarType.getSharedKey(constant);
+      VarType.putShared(byValue, key, byValue.get(key), constant);
+    }
+  }
+
+  // null if instances of the type are not shared
+  public ConcurrentHashMap<String, VarType[]> getTypes(int type) {
+    return type < 0 || type >= types.size() ? null : types.get(type);
+  }
+
+  public String getStatistics() {
+    return "Descriptor cache: " +
+           "method descriptors " + methodDescriptors +
+           ", field descriptors " + fieldDescriptors +
+           ", class signatures " + classSignatures +
+           ", method signatures " + methodSignatures +
+           ", field signatures " + fieldSignatures +
+           ", type signatures " + typeSignatures +
+           ", class type signatures " + classTypeSignatures;
+  }
+
+  public static class Table<T> {
+    private final ConcurrentHashMap<String, T> map = new ConcurrentHashMap<String, T>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public T get(String key) {
+      T value = map.get(key);
+      (value == null ? misses : hits).incrementAndGet();
+      return value;
+    }
+
+    // returns the instance stored first, so that concurrent parses of the same key end up sharing it
+    public T put(String key, T value) {
+      if (value == null) {
+        return null; // parse errors are not cached
+      }
+      if (map.size() >= MAX_ENTRIES) {
+        map.clear();
+      }
+      T previous = map.putIfAbsent(key, value);
+      return previous == null ? value : previous;
+    }
+
+    public long getHits() {
+      return hits.get();
+    }
+
+    public long getMisses() {
+      return misses.get();
+    }
+
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public String toString() {
+      long hits = getHits(), total = hits + getMisses();
+      return size() + " entries, " + hits + "/" + total + " hits" + (total == 0 ? "" : " (" + (hits * 100 / total) + "%)");
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package org.jetbrains.java.decompiler.struct.gen;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
 
 public class FieldDescriptor {
 
@@ -28,19 +29,27 @@ public class FieldDescriptor {
   public final String descriptorString;
 
   private FieldDescriptor(String descriptor) {
-    type = new VarType(descriptor);
+    type = VarType.fromSignature(descriptor);
     descriptorString = descriptor;
   }
 
   public static FieldDescriptor parseDescriptor(String descriptor) {
-    return new FieldDescriptor(descriptor);
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    if (cache == null) {
+      return new FieldDescriptor(descriptor);
+    }
+    FieldDescriptor fd = cache.fieldDescriptors.get(descriptor);
+    if (fd == null) {
+      fd = cache.fieldDescriptors.put(descriptor, new FieldDescriptor(descriptor));
+    }
+    return fd;
   }
 
   public String buildNewDescriptor(NewClassNameBuilder builder) {
     if (type.type == CodeConstants.TYPE_OBJECT) {
       String newClassName = builder.buildNewClassname(type.value);
       if (newClassName != null) {
-        return new VarType(type.type, type.arrayDim, newClassName).toString();
+        return VarType.of(type.type, type.arrayDim, newClassName).toString();
       }
     }
 
@@ -16,6 +16,7 @@
 package org.jetbrains.java.decompiler.struct.gen;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.struct.gen.generics.GenericMethodDescriptor;
 
 import java.util.ArrayList;
@@ -26,14 +27,27 @@ public class MethodDescriptor {
 
   public final VarType[] params;
   public final VarType ret;
-  public GenericMethodDescriptor genericInfo;
+  public final GenericMethodDescriptor genericInfo;
 
-  private MethodDescriptor(VarType[] params, VarType ret) {
+  private MethodDescriptor(VarType[] params, VarType ret, GenericMethodDescriptor genericInfo) {
     this.params = params;
     this.ret = ret;
+    this.genericInfo = genericInfo;
   }
 
   public static MethodDescriptor parseDescriptor(String descriptor) {
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    if (cache == null) {
+      return doParseDescriptor(descriptor);
+    }
+    MethodDescriptor md = cache.methodDescriptors.get(descriptor);
+    if (md == null) {
+      md = cache.methodDescriptors.put(descriptor, doParseDescriptor(descriptor));
+    }
+    return md;
+  }
+
+  private static MethodDescriptor doParseDescriptor(String descriptor) {
     int parenth = descriptor.lastIndexOf(')');
     if (descriptor.length() < 2 || parenth < 0 || descriptor.charAt(0) != '(') {
       throw new IllegalArgumentException("Invalid descriptor: " + descriptor);
@@ -68,21 +82,23 @@ public class MethodDescriptor {
 
       params = new VarType[lst.size()];
       for (int i = 0; i < lst.size(); i++) {
-        params[i] = new VarType(lst.get(i));
+        params[i] = VarType.fromSignature(lst.get(i));
       }
     }
     else {
       params = VarType.EMPTY_ARRAY;
     }
 
-    VarType ret = new VarType(descriptor.substring(parenth + 1));
+    VarType ret = VarType.fromSignature(descriptor.substring(parenth + 1));
 
-    return new MethodDescriptor(params, ret);
+    return new MethodDescriptor(params, ret, null);
   }
 
-  public void addGenericDescriptor(GenericMethodDescriptor desc) {
-    this.genericInfo = desc;
+  // parsed descriptors are shared, so the generic info goes into a copy
+  public MethodDescriptor withGenericDescriptor(GenericMethodDescriptor desc) {
+    return new MethodDescriptor(params, ret, desc);
   }
+
   public String buildNewDescriptor(NewClassNameBuilder builder) {
     boolean updated = false;
 
@@ -125,7 +141,7 @@ public class MethodDescriptor {
     if (type.type == CodeConstants.TYPE_OBJECT) {
       String newClassName = builder.buildNewClassname(type.value);
       if (newClassName != null) {
-        return new VarType(type.type, type.arrayDim, newClassName);
+        return VarType.of(type.type, type.arrayDim, newClassName);
       }
     }
     return null;
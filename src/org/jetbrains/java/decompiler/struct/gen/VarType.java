@@ -16,15 +16,19 @@
 package org.jetbrains.java.decompiler.struct.gen;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.struct.gen.generics.GenericType;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class VarType {  // TODO: optimize switch
 
   public static final VarType[] EMPTY_ARRAY = {};
 
+  private static final String NULL_VALUE_KEY = ""; // stands for a null value, empty values are not shared
+
   public static final VarType VARTYPE_UNKNOWN = new VarType(CodeConstants.TYPE_UNKNOWN);
   public static final VarType VARTYPE_INT = new VarType(CodeConstants.TYPE_INT);
   public static final VarType VARTYPE_FLOAT = new VarType(CodeConstants.TYPE_FLOAT);
@@ -43,6 +47,12 @@ public class VarType {  // TODO: optimize switch
   public static final VarType VARTYPE_OBJECT = new VarType(CodeConstants.TYPE_OBJECT, 0, "java/lang/Object");
   public static final VarType VARTYPE_VOID = new VarType(CodeConstants.TYPE_VOID);
 
+  // the shared instances of their types in every decompiler context
+  static final VarType[] CONSTANTS = {
+    VARTYPE_UNKNOWN, VARTYPE_INT, VARTYPE_FLOAT, VARTYPE_LONG, VARTYPE_DOUBLE, VARTYPE_BYTE, VARTYPE_CHAR, VARTYPE_SHORT,
+    VARTYPE_BOOLEAN, VARTYPE_BYTECHAR, VARTYPE_SHORTCHAR, VARTYPE_NULL, VARTYPE_STRING, VARTYPE_CLASS, VARTYPE_OBJECT,
+    VARTYPE_VOID};
+
   public final int type;
   public final int arrayDim;
   public final String value;
@@ -113,6 +123,98 @@ public class VarType {  // TODO: optimize switch
     this.falseBoolean = false;
   }
 
+  // *****************************************************************************
+  // Shared instances
+  // *****************************************************************************
+
+  public static VarType of(int type) {
+    return of(type, 0);
+  }
+
+  public static VarType of(int type, int arrayDim) {
+    return of(type, arrayDim, getChar(type));
+  }
+
+  /**
+   * Returns the instance equal to {@code new VarType(type, arrayDim, value)} shared within the current decompiler
+   * context. Instances are immutable, so callers may keep and compare them by identity as a fast path before
+   * {@link #equals(Object)}.
+   */
+  public static VarType of(int type, int arrayDim, String value) {
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    if (cache == null || arrayDim < 0 || NULL_VALUE_KEY.equals(value)) {
+      return new VarType(type, arrayDim, value);
+    }
+
+    ConcurrentHashMap<String, VarType[]> byValue = cache.getTypes(type);
+    if (byValue == null) {
+      return new VarType(type, arrayDim, value);
+    }
+
+    String key = value == null ? NULL_VALUE_KEY : value;
+
+    while (true) {
+      VarType[] byDim = byValue.get(key);
+      if (byDim != null && arrayDim < byDim.length && byDim[arrayDim] != null) {
+        return byDim[arrayDim];
+      }
+      if (byDim == null && byValue.size() >= DescriptorCache.MAX_ENTRIES) {
+        return new VarType(type, arrayDim, value);
+      }
+
+      VarType res = new VarType(type, arrayDim, value);
+      if (putShared(byValue, key, byDim, res)) {
+        return res;
+      }
+    }
+  }
+
+  // registers the given instance for its array dimension unless the value table has changed in the meantime
+  static boolean putShared(ConcurrentHashMap<String, VarType[]> byValue, String key, VarType[] byDim, VarType type) {
+    VarType[] newByDim = new VarType[byDim == null ? type.arrayDim + 1 : Math.max(type.arrayDim + 1, byDim.length)];
+    if (byDim != null) {
+      System.arraycopy(byDim, 0, newByDim, 0, byDim.length);
+    }
+    newByDim[type.arrayDim] = type;
+
+    return byDim == null ? byValue.putIfAbsent(key, newByDim) == null : byValue.replace(key, byDim, newByDim);
+  }
+
+  static String getSharedKey(VarType type) {
+    return type.value == null ? NULL_VALUE_KEY : type.value;
+  }
+
+  public static VarType fromSignature(String signature) {
+    return fromSignature(signature, false);
+  }
+
+  /**
+   * Shared instance equal to {@code new VarType(signature, clType)}, parsed signatures are cached per context.
+   */
+  public static VarType fromSignature(String signature, boolean clType) {
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    DescriptorCache.Table<VarType> table = cache == null ? null : clType ? cache.classTypeSignatures : cache.typeSignatures;
+
+    VarType res = table == null ? null : table.get(signature);
+    if (res == null) {
+      VarType parsed = new VarType(signature, clType);
+      res = of(parsed.type, parsed.arrayDim, parsed.value);
+      if (table != null) {
+        res = table.put(signature, res);
+      }
+    }
+
+    return res;
+  }
+
+  // shared instance if the derived attributes are the default ones, a new instance otherwise
+  private static VarType of(int type, int arrayDim, String value, int typeFamily, int stackSize, boolean falseBoolean) {
+    if (!falseBoolean && typeFamily == getFamily(type, arrayDim) && stackSize == getStackSize(type, arrayDim)) {
+      return of(type, arrayDim, value);
+    }
+    return new VarType(type, arrayDim, value, typeFamily, stackSize, falseBoolean);
+  }
+
   private static String getChar(int type) {
     switch (type) {
       case CodeConstants.TYPE_BYTE:
@@ -201,7 +303,7 @@ public class VarType {  // TODO: optimize switch
 
   public VarType decreaseArrayDim() {
     if (arrayDim > 0) {
-      return new VarType(type, arrayDim - 1, value);
+      return of(type, arrayDim - 1, value);
     }
     else {
       //throw new RuntimeException("array dimension equals 0!"); FIXME: investigate this case
@@ -210,7 +312,7 @@ public class VarType {  // TODO: optimize switch
   }
 
   public VarType resizeArrayDim(int newArrayDim) {
-    return new VarType(type, newArrayDim, value, typeFamily, stackSize, falseBoolean);
+    return of(type, newArrayDim, value, typeFamily, stackSize, falseBoolean);
   }
 
   public VarType copy() {
@@ -218,7 +320,7 @@ public class VarType {  // TODO: optimize switch
   }
 
   public VarType copy(boolean forceFalseBoolean) {
-    return new VarType(type, arrayDim, value, typeFamily, stackSize, falseBoolean || forceFalseBoolean);
+    return of(type, arrayDim, value, typeFamily, stackSize, falseBoolean || forceFalseBoolean);
   }
 
   public boolean isFalseBoolean() {
@@ -19,6 +19,7 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
+import org.jetbrains.java.decompiler.struct.gen.DescriptorCache;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 
 import java.util.ArrayList;
@@ -38,6 +39,18 @@ public class GenericMain {
   };
 
   public static GenericClassDescriptor parseClassSignature(String signature) {
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    if (cache == null) {
+      return doParseClassSignature(signature);
+    }
+    GenericClassDescriptor descriptor = cache.classSignatures.get(signature);
+    if (descriptor == null) {
+      descriptor = cache.classSignatures.put(signature, doParseClassSignature(signature));
+    }
+    return descriptor;
+  }
+
+  private static GenericClassDescriptor doParseClassSignature(String signature) {
     String original = signature;
     try {
       GenericClassDescriptor descriptor = new GenericClassDescriptor();
@@ -63,6 +76,18 @@ public class GenericMain {
   }
 
   public static GenericFieldDescriptor parseFieldSignature(String signature) {
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    if (cache == null) {
+      return doParseFieldSignature(signature);
+    }
+    GenericFieldDescriptor descriptor = cache.fieldSignatures.get(signature);
+    if (descriptor == null) {
+      descriptor = cache.fieldSignatures.put(signature, doParseFieldSignature(signature));
+    }
+    return descriptor;
+  }
+
+  private static GenericFieldDescriptor doParseFieldSignature(String signature) {
     try {
       GenericFieldDescriptor descriptor = new GenericFieldDescriptor();
       descriptor.type = GenericType.parse(signature);
@@ -75,6 +100,18 @@ public class GenericMain {
   }
 
   public static GenericMethodDescriptor parseMethodSignature(String signature) {
+    DescriptorCache cache = DecompilerContext.getDescriptorCache();
+    if (cache == null) {
+      return doParseMethodSignature(signature);
+    }
+    GenericMethodDescriptor descriptor = cache.methodSignatures.get(signature);
+    if (descriptor == null) {
+      descriptor = cache.methodSignatures.put(signature, doParseMethodSignature(signature));
+    }
+    return descriptor;
+  }
+
+  private static GenericMethodDescriptor doParseMethodSignature(String signature) {
     String original = signature;
     try {
       GenericMethodDescriptor descriptor = new GenericMethodDescriptor();
@@ -19,29 +19,16 @@ import java.util.*;
 
 public class FastFixedSetFactory<E> {
 
-  private final VBStyleCollection<int[], E> colValuesInternal = new VBStyleCollection<int[], E>();
+  private final FastSetElementIndex<E> elementIndex = new FastSetElementIndex<E>();
 
   private final int dataLength;
 
   public FastFixedSetFactory(Collection<E> set) {
 
-    dataLength = set.size() / 32 + 1;
-
-    int index = 0;
-    int mask = 1;
+    dataLength = set.size() / 64 + 1;
 
     for (E element : set) {
-
-      int block = index / 32;
-
-      if (index % 32 == 0) {
-        mask = 1;
-      }
-
-      colValuesInternal.putWithKey(new int[]{block, mask}, element);
-
-      index++;
-      mask <<= 1;
+      elementIndex.add(element);
     }
   }
 
@@ -53,23 +40,23 @@ public class FastFixedSetFactory<E> {
     return dataLength;
   }
 
-  private VBStyleCollection<int[], E> getInternalValuesCollection() {
-    return colValuesInternal;
+  private FastSetElementIndex<E> getElementIndex() {
+    return elementIndex;
   }
 
   public static class FastFixedSet<E> implements Iterable<E> {
 
     private final FastFixedSetFactory<E> factory;
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
+    private final FastSetElementIndex<E> elementIndex;
 
-    private int[] data;
+    private long[] data;
 
 
     private FastFixedSet(FastFixedSetFactory<E> factory) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
-      this.data = new int[factory.getDataLength()];
+      this.elementIndex = factory.getElementIndex();
+      this.data = new long[factory.getDataLength()];
     }
 
     public FastFixedSet<E> getCopy() {
@@ -77,7 +64,7 @@ public class FastFixedSetFactory<E> {
       FastFixedSet<E> copy = new FastFixedSet<E>(factory);
 
       int arrlength = data.length;
-      int[] cpdata = new int[arrlength];
+      long[] cpdata = new long[arrlength];
       System.arraycopy(data, 0, cpdata, 0, arrlength);
       copy.setData(cpdata);
 
@@ -86,18 +73,19 @@ public class FastFixedSetFactory<E> {
 
     public void setAllElements() {
 
-      int[] lastindex = colValuesInternal.get(colValuesInternal.size() - 1);
+      int size = elementIndex.size();
+      int lastblock = size >>> 6;
 
-      for (int i = lastindex[0] - 1; i >= 0; i--) {
-        data[i] = 0xFFFFFFFF;
+      for (int i = lastblock - 1; i >= 0; i--) {
+        data[i] = -1L;
       }
 
-      data[lastindex[0]] = lastindex[1] | (lastindex[1] - 1);
+      data[lastblock] = (1L << (size & 0x3F)) - 1;
     }
 
     public void add(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      data[index[0]] |= index[1];
+      int index = elementIndex.indexOf(element);
+      data[index >>> 6] |= 1L << index;
     }
 
     public void addAll(Collection<E> set) {
@@ -107,8 +95,8 @@ public class FastFixedSetFactory<E> {
     }
 
     public void remove(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      data[index[0]] &= ~index[1];
+      int index = elementIndex.indexOf(element);
+      data[index >>> 6] &= ~(1L << index);
     }
 
     public void removeAll(Collection<E> set) {
@@ -118,15 +106,15 @@ public class FastFixedSetFactory<E> {
     }
 
     public boolean contains(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      return (data[index[0]] & index[1]) != 0;
+      int index = elementIndex.indexOf(element);
+      return (data[index >>> 6] & (1L << index)) != 0;
     }
 
     public boolean contains(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
-      for (int i = intdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < intdata.length; i++) {
         if ((extdata[i] & ~intdata[i]) != 0) {
           return false;
         }
@@ -136,37 +124,37 @@ public class FastFixedSetFactory<E> {
     }
 
     public void union(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
-      for (int i = intdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < intdata.length; i++) {
         intdata[i] |= extdata[i];
       }
     }
 
     public void intersection(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
-      for (int i = intdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < intdata.length; i++) {
         intdata[i] &= extdata[i];
       }
     }
 
     public void symdiff(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
-      for (int i = intdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < intdata.length; i++) {
         intdata[i] ^= extdata[i];
       }
     }
 
     public void complement(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
-      for (int i = intdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < intdata.length; i++) {
         intdata[i] &= ~extdata[i];
       }
     }
@@ -176,22 +164,13 @@ public class FastFixedSetFactory<E> {
       if (o == this) return true;
       if (o == null || !(o instanceof FastFixedSet)) return false;
 
-      int[] extdata = ((FastFixedSet)o).getData();
-      int[] intdata = data;
-
-      for (int i = intdata.length - 1; i >= 0; i--) {
-        if (intdata[i] != extdata[i]) {
-          return false;
-        }
-      }
-
-      return true;
+      return Arrays.equals(data, ((FastFixedSet)o).getData());
     }
 
     public boolean isEmpty() {
-      int[] intdata = data;
+      long[] intdata = data;
 
-      for (int i = intdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < intdata.length; i++) {
         if (intdata[i] != 0) {
           return false;
         }
@@ -215,18 +194,13 @@ public class FastFixedSetFactory<E> {
 
     private <T extends Collection<E>> T toPlainCollection(T cl) {
 
-      int[] intdata = data;
+      long[] intdata = data;
       for (int bindex = 0; bindex < intdata.length; bindex++) {
-        int block = intdata[bindex];
-        if (block != 0) {
-          int index = bindex << 5; // * 32
-          for (int i = 31; i >= 0; i--) {
-            if ((block & 1) != 0) {
-              cl.add(colValuesInternal.getKey(index));
-            }
-            index++;
-            block >>>= 1;
-          }
+        long block = intdata[bindex];
+        while (block != 0) {
+          int index = (bindex << 6) + Long.numberOfTrailingZeros(block);
+          cl.add(elementIndex.get(index));
+          block &= block - 1;
         }
       }
 
@@ -236,10 +210,10 @@ public class FastFixedSetFactory<E> {
     public String toBinary() {
 
       StringBuilder buffer = new StringBuilder();
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = 0; i < intdata.length; i++) {
-        buffer.append(" ").append(Integer.toBinaryString(intdata[i]));
+        buffer.append(" ").append(Long.toBinaryString(intdata[i]));
       }
 
       return buffer.toString();
@@ -249,20 +223,18 @@ public class FastFixedSetFactory<E> {
 
       StringBuilder buffer = new StringBuilder("{");
 
-      int[] intdata = data;
+      long[] intdata = data;
       boolean first = true;
 
-      for (int i = colValuesInternal.size() - 1; i >= 0; i--) {
-        int[] index = colValuesInternal.get(i);
-
-        if ((intdata[index[0]] & index[1]) != 0) {
+      for (int i = elementIndex.size() - 1; i >= 0; i--) {
+        if ((intdata[i >>> 6] & (1L << i)) != 0) {
           if (first) {
             first = false;
           }
           else {
             buffer.append(",");
           }
-          buffer.append(colValuesInternal.getKey(i));
+          buffer.append(elementIndex.get(i));
         }
       }
 
@@ -271,11 +243,11 @@ public class FastFixedSetFactory<E> {
       return buffer.toString();
     }
 
-    private int[] getData() {
+    private long[] getData() {
       return data;
     }
 
-    private void setData(int[] data) {
+    private void setData(long[] data) {
       this.data = data;
     }
 
@@ -286,46 +258,36 @@ public class FastFixedSetFactory<E> {
 
   public static class FastFixedSetIterator<E> implements Iterator<E> {
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
-    private final int[] data;
+    private final FastSetElementIndex<E> elementIndex;
+    private final long[] data;
     private final int size;
 
     private int pointer = -1;
     private int next_pointer = -1;
 
     private FastFixedSetIterator(FastFixedSet<E> set) {
-      colValuesInternal = set.getFactory().getInternalValuesCollection();
+      elementIndex = set.getFactory().getElementIndex();
       data = set.getData();
-      size = colValuesInternal.size();
+      size = elementIndex.size();
     }
 
     private int getNextIndex(int index) {
 
       index++;
-      int ret = index;
-      int bindex = index / 32;
-      int dindex = index % 32;
-
-      while (bindex < data.length) {
-        int block = data[bindex];
-
-        if (block != 0) {
-          block >>>= dindex;
-          while (dindex < 32) {
-            if ((block & 1) != 0) {
-              return ret;
-            }
-            block >>>= 1;
-            dindex++;
-            ret++;
+      int bindex = index >>> 6;
+
+      if (bindex < data.length) {
+        long block = data[bindex] & (-1L << index);
+
+        while (true) {
+          if (block != 0) {
+            return (bindex << 6) + Long.numberOfTrailingZeros(block);
           }
+          if (++bindex == data.length) {
+            break;
+          }
+          block = data[bindex];
         }
-        else {
-          ret += (32 - dindex);
-        }
-
-        dindex = 0;
-        bindex++;
       }
 
       return -1;
@@ -348,13 +310,11 @@ public class FastFixedSetFactory<E> {
       }
 
       next_pointer = -1;
-      return pointer < size ? colValuesInternal.getKey(pointer) : null;
+      return pointer < size ? elementIndex.get(pointer) : null;
     }
 
     public void remove() {
-      int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      data[pointer >>> 6] &= ~(1L << pointer);
     }
   }
 }
-
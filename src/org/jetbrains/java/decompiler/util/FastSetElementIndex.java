@@ -0,0 +1,95 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Element to bit position mapping shared by the fast set factories. Positions are assigned in insertion order.
+ * As long as all elements are small non-negative integers (statement ids, variable versions) the position is
+ * looked up in a plain int array indexed by the element value, otherwise a hash map is used.
+ */
+final class FastSetElementIndex<E> {
+
+  private static final int DIRECT_INDEX_MIN_LIMIT = 4096;
+
+  private final List<E> elements = new ArrayList<E>();
+
+  // element value -> position + 1, 0 means 'absent'; null after switching to the hash map
+  private int[] directIndex = new int[64];
+
+  private HashMap<E, Integer> mapIndex;
+
+  public int indexOf(E element) {
+    if (directIndex != null) {
+      if (element instanceof Integer) {
+        int value = (Integer)element;
+        if (value >= 0 && value < directIndex.length) {
+          return directIndex[value] - 1;
+        }
+      }
+      return -1;
+    }
+
+    Integer index = mapIndex.get(element);
+    return index == null ? -1 : index;
+  }
+
+  public int add(E element) {
+    int index = elements.size();
+    elements.add(element);
+
+    if (directIndex != null) {
+      int value = element instanceof Integer ? (Integer)element : -1;
+      if (value >= 0 && (value < DIRECT_INDEX_MIN_LIMIT || value < index * 8)) {
+        if (value >= directIndex.length) {
+          int length = directIndex.length;
+          while (length <= value) {
+            length *= 2;
+          }
+          int[] newIndex = new int[length];
+          System.arraycopy(directIndex, 0, newIndex, 0, directIndex.length);
+          directIndex = newIndex;
+        }
+        directIndex[value] = index + 1;
+        return index;
+      }
+
+      switchToMap();
+    }
+
+    mapIndex.put(element, index);
+    return index;
+  }
+
+  public E get(int index) {
+    return elements.get(index);
+  }
+
+  public int size() {
+    return elements.size();
+  }
+
+  private void switchToMap() {
+    mapIndex = new HashMap<E, Integer>();
+    for (int i = 0; i < elements.size(); i++) {
+      mapIndex.put(elements.get(i), i);
+    }
+    directIndex = null;
+  }
+}
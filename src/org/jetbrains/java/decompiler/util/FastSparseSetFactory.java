@@ -22,52 +22,20 @@ import java.util.Set;
 
 public class FastSparseSetFactory<E> {
 
-  private final VBStyleCollection<int[], E> colValuesInternal = new VBStyleCollection<int[], E>();
-
-  private int lastBlock;
-
-  private int lastMask;
+  private final FastSetElementIndex<E> elementIndex = new FastSetElementIndex<E>();
 
   public FastSparseSetFactory(Collection<E> set) {
-
-    int block = -1;
-    int mask = -1;
-    int index = 0;
-
     for (E element : set) {
-
-      block = index / 32;
-
-      if (index % 32 == 0) {
-        mask = 1;
-      }
-      else {
-        mask <<= 1;
-      }
-
-      colValuesInternal.putWithKey(new int[]{block, mask}, element);
-
-      index++;
+      elementIndex.add(element);
     }
-
-    lastBlock = block;
-    lastMask = mask;
   }
 
-  private int[] addElement(E element) {
-
-    if (lastMask == -1 || lastMask == 0x80000000) {
-      lastMask = 1;
-      lastBlock++;
+  private int getIndex(E element) {
+    int index = elementIndex.indexOf(element);
+    if (index < 0) {
+      index = elementIndex.add(element);
     }
-    else {
-      lastMask <<= 1;
-    }
-
-    int[] pointer = new int[]{lastBlock, lastMask};
-    colValuesInternal.putWithKey(pointer, element);
-
-    return pointer;
+    return index;
   }
 
   public FastSparseSet<E> spawnEmptySet() {
@@ -75,15 +43,11 @@ public class FastSparseSetFactory<E> {
   }
 
   public int getLastBlock() {
-    return lastBlock;
-  }
-
-  public int getLastMask() {
-    return lastMask;
+    return (elementIndex.size() - 1) >> 6;
   }
 
-  private VBStyleCollection<int[], E> getInternalValuesCollection() {
-    return colValuesInternal;
+  private FastSetElementIndex<E> getElementIndex() {
+    return elementIndex;
   }
 
 
@@ -92,23 +56,23 @@ public class FastSparseSetFactory<E> {
 
     private final FastSparseSetFactory<E> factory;
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
+    private final FastSetElementIndex<E> elementIndex;
 
-    private int[] data;
+    private long[] data;
     private int[] next;
 
     private FastSparseSet(FastSparseSetFactory<E> factory) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
+      this.elementIndex = factory.getElementIndex();
 
       int length = factory.getLastBlock() + 1;
-      this.data = new int[length];
+      this.data = new long[length];
       this.next = new int[length];
     }
 
-    private FastSparseSet(FastSparseSetFactory<E> factory, int[] data, int[] next) {
+    private FastSparseSet(FastSparseSetFactory<E> factory, long[] data, int[] next) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
+      this.elementIndex = factory.getElementIndex();
 
       this.data = data;
       this.next = next;
@@ -117,7 +81,7 @@ public class FastSparseSetFactory<E> {
     public FastSparseSet<E> getCopy() {
 
       int arrlength = data.length;
-      int[] cpdata = new int[arrlength];
+      long[] cpdata = new long[arrlength];
       int[] cpnext = new int[arrlength];
 
       System.arraycopy(data, 0, cpdata, 0, arrlength);
@@ -126,7 +90,7 @@ public class FastSparseSetFactory<E> {
       return new FastSparseSet<E>(factory, cpdata, cpnext);
     }
 
-    private int[] ensureCapacity(int index) {
+    private long[] ensureCapacity(int index) {
 
       int newlength = data.length;
       if (newlength == 0) {
@@ -137,7 +101,7 @@ public class FastSparseSetFactory<E> {
         newlength *= 2;
       }
 
-      int[] newdata = new int[newlength];
+      long[] newdata = new long[newlength];
       System.arraycopy(data, 0, newdata, 0, data.length);
       data = newdata;
 
@@ -149,37 +113,33 @@ public class FastSparseSetFactory<E> {
     }
 
     public void add(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-
-      if (index == null) {
-        index = factory.addElement(element);
-      }
+      int index = factory.getIndex(element);
 
-      int block = index[0];
+      int block = index >>> 6;
       if (block >= data.length) {
         ensureCapacity(block);
       }
 
-      data[block] |= index[1];
+      data[block] |= 1L << index;
 
       changeNext(next, block, next[block], block);
     }
 
     public void setAllElements() {
 
-      int lastblock = factory.getLastBlock();
-      int lastmask = factory.getLastMask();
+      int size = elementIndex.size();
+      int lastblock = (size - 1) >> 6;
 
       if (lastblock >= data.length) {
         ensureCapacity(lastblock);
       }
 
       for (int i = lastblock - 1; i >= 0; i--) {
-        data[i] = 0xFFFFFFFF;
+        data[i] = -1L;
         next[i] = i + 1;
       }
 
-      data[lastblock] = lastmask | (lastmask - 1);
+      data[lastblock] = -1L >>> (-size & 0x3F);
       next[lastblock] = 0;
     }
 
@@ -190,15 +150,11 @@ public class FastSparseSetFactory<E> {
     }
 
     public void remove(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-
-      if (index == null) {
-        index = factory.addElement(element);
-      }
+      int index = factory.getIndex(element);
 
-      int block = index[0];
+      int block = index >>> 6;
       if (block < data.length) {
-        data[block] &= ~index[1];
+        data[block] &= ~(1L << index);
 
         if (data[block] == 0) {
           changeNext(next, block, block, next[block]);
@@ -213,22 +169,19 @@ public class FastSparseSetFactory<E> {
     }
 
     public boolean contains(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
+      int index = factory.getIndex(element);
 
-      if (index == null) {
-        index = factory.addElement(element);
-      }
-
-      return index[0] < data.length && ((data[index[0]] & index[1]) != 0);
+      int block = index >>> 6;
+      return block < data.length && ((data[block] & (1L << index)) != 0);
     }
 
     public boolean contains(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
-      for (int i = minlength - 1; i >= 0; i--) {
+      for (int i = 0; i < minlength; i++) {
         if ((extdata[i] & ~intdata[i]) != 0) {
           return false;
         }
@@ -267,9 +220,9 @@ public class FastSparseSetFactory<E> {
 
     public void union(FastSparseSet<E> set) {
 
-      int[] extdata = set.getData();
+      long[] extdata = set.getData();
       int[] extnext = set.getNext();
-      int[] intdata = data;
+      long[] intdata = data;
       int intlength = intdata.length;
 
       int pointer = 0;
@@ -291,12 +244,12 @@ public class FastSparseSetFactory<E> {
     }
 
     public void intersection(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
-      for (int i = minlength - 1; i >= 0; i--) {
+      for (int i = 0; i < minlength; i++) {
         intdata[i] &= extdata[i];
       }
 
@@ -308,12 +261,12 @@ public class FastSparseSetFactory<E> {
     }
 
     public void symdiff(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
-      for (int i = minlength - 1; i >= 0; i--) {
+      for (int i = 0; i < minlength; i++) {
         intdata[i] ^= extdata[i];
       }
 
@@ -322,6 +275,7 @@ public class FastSparseSetFactory<E> {
         if (extdata[i] != 0) {
           if (!expanded) {
             intdata = ensureCapacity(extdata.length - 1);
+            expanded = true;
           }
           intdata[i] = extdata[i];
         }
@@ -332,8 +286,8 @@ public class FastSparseSetFactory<E> {
 
     public void complement(FastSparseSet<E> set) {
 
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
       int extlength = extdata.length;
 
       int pointer = 0;
@@ -357,15 +311,15 @@ public class FastSparseSetFactory<E> {
       if (o == this) return true;
       if (o == null || !(o instanceof FastSparseSet)) return false;
 
-      int[] longdata = ((FastSparseSet)o).getData();
-      int[] shortdata = data;
+      long[] longdata = ((FastSparseSet)o).getData();
+      long[] shortdata = data;
 
       if (data.length > longdata.length) {
         shortdata = longdata;
         longdata = data;
       }
 
-      for (int i = shortdata.length - 1; i >= 0; i--) {
+      for (int i = 0; i < shortdata.length; i++) {
         if (shortdata[i] != longdata[i]) {
           return false;
         }
@@ -383,10 +337,10 @@ public class FastSparseSetFactory<E> {
     public int getCardinality() {
 
       boolean found = false;
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
-        int block = intdata[i];
+        long block = intdata[i];
         if (block != 0) {
           if (found) {
             return 2;
@@ -416,18 +370,18 @@ public class FastSparseSetFactory<E> {
     public Set<E> toPlainSet() {
       HashSet<E> set = new HashSet<E>();
 
-      int[] intdata = data;
-
-      int size = data.length * 32;
-      if (size > colValuesInternal.size()) {
-        size = colValuesInternal.size();
-      }
-
-      for (int i = size - 1; i >= 0; i--) {
-        int[] index = colValuesInternal.get(i);
+      long[] intdata = data;
+      int size = elementIndex.size();
 
-        if ((intdata[index[0]] & index[1]) != 0) {
-          set.add(colValuesInternal.getKey(i));
+      for (int bindex = 0; bindex < intdata.length; bindex++) {
+        long block = intdata[bindex];
+        while (block != 0) {
+          int index = (bindex << 6) + Long.numberOfTrailingZeros(block);
+          if (index >= size) {
+            break;
+          }
+          set.add(elementIndex.get(index));
+          block &= block - 1;
         }
       }
 
@@ -441,16 +395,16 @@ public class FastSparseSetFactory<E> {
     public String toBinary() {
 
       StringBuilder buffer = new StringBuilder();
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = 0; i < intdata.length; i++) {
-        buffer.append(" ").append(Integer.toBinaryString(intdata[i]));
+        buffer.append(" ").append(Long.toBinaryString(intdata[i]));
       }
 
       return buffer.toString();
     }
 
-    private int[] getData() {
+    private long[] getData() {
       return data;
     }
 
@@ -459,7 +413,7 @@ public class FastSparseSetFactory<E> {
     }
 
     public int[] getLoad() {
-      int[] intdata = data;
+      long[] intdata = data;
       int notempty = 0;
 
       for (int i = 0; i < intdata.length; i++) {
@@ -478,8 +432,8 @@ public class FastSparseSetFactory<E> {
 
   public static class FastSparseSetIterator<E> implements Iterator<E> {
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
-    private final int[] data;
+    private final FastSetElementIndex<E> elementIndex;
+    private final long[] data;
     private final int[] next;
     private final int size;
 
@@ -487,37 +441,30 @@ public class FastSparseSetFactory<E> {
     private int next_pointer = -1;
 
     private FastSparseSetIterator(FastSparseSet<E> set) {
-      colValuesInternal = set.getFactory().getInternalValuesCollection();
+      elementIndex = set.getFactory().getElementIndex();
       data = set.getData();
       next = set.getNext();
-      size = colValuesInternal.size();
+      size = elementIndex.size();
     }
 
     private int getNextIndex(int index) {
 
       index++;
-      int bindex = index >>> 5;
-      int dindex = index & 0x1F;
+      int bindex = index >>> 6;
 
-      while (bindex < data.length) {
-        int block = data[bindex];
+      if (bindex < data.length) {
+        long block = data[bindex] & (-1L << index);
 
-        if (block != 0) {
-          block >>>= dindex;
-          while (dindex < 32) {
-            if ((block & 1) != 0) {
-              return (bindex << 5) + dindex;
-            }
-            block >>>= 1;
-            dindex++;
+        while (true) {
+          if (block != 0) {
+            return (bindex << 6) + Long.numberOfTrailingZeros(block);
           }
-        }
 
-        dindex = 0;
-        bindex = next[bindex];
-
-        if (bindex == 0) {
-          break;
+          bindex = next[bindex];
+          if (bindex == 0) {
+            break;
+          }
+          block = data[bindex];
         }
       }
 
@@ -541,13 +488,11 @@ public class FastSparseSetFactory<E> {
       }
 
       next_pointer = -1;
-      return pointer < size ? colValuesInternal.getKey(pointer) : null;
+      return pointer < size ? elementIndex.get(pointer) : null;
     }
 
     public void remove() {
-      int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      data[pointer >>> 6] &= ~(1L << pointer);
     }
   }
 }
-
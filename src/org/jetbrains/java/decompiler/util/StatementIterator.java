@@ -1,7 +1,5 @@
 package org.jetbrains.java.decompiler.util;
 
-import java.util.List;
-
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph.ExprentIterator;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
@@ -33,11 +31,13 @@ public class StatementIterator {
     }
   }
 
-  private static void iterate(Exprent exp, ExprentIterator itr) {
-    List<Exprent> lst = exp.getAllExprents(true);
-    lst.add(exp);
-    for (Exprent exprent : lst) {
-      itr.processExprent(exprent);
-    }
+  private static void iterate(Exprent exp, final ExprentIterator itr) {
+    exp.visitPreOrder(new Exprent.ExprentVisitor() {
+      @Override
+      public int visit(Exprent exprent) {
+        itr.processExprent(exprent);
+        return Exprent.VISIT_CONTINUE;
+      }
+    });
   }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler;
+
+import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
+import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryMappingTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp(new HashMap<String, Object>() {{
+      put(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1");
+      put(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING_BINARY, "1");
+      put(IFernflowerPreferences.DUMP_ORIGINAL_LINES, "1");
+    }});
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testPairsAddedOutOfOrder() throws IOException {
+    BytecodeSourceMapper mapper = new BytecodeSourceMapper();
+    mapper.addMapping("pkg/A", "m ()V", 8, 3);
+    mapper.addMapping("pkg/A", "m ()V", 2, 1);
+    mapper.addMapping("pkg/A", "m ()V", 8, 5); // the line added first is kept
+
+    BytecodeMappingTracer tracer = new BytecodeMappingTracer();
+    tracer.getMapping().put(5, 2);
+    tracer.getMapping().put(2, 4);
+    tracer.getUnmappedLines().add(12);
+    tracer.getUnmappedLines().add(10);
+    mapper.addTracer("pkg/A", "m ()V", tracer);
+    mapper.addTracer("pkg/B", "n ()V", tracer);
+
+    String expected = "class 'pkg/A' {\n" +
+                      "   method 'm ()V' {\n" +
+                      "      2      1\n" +
+                      "      5      2\n" +
+                      "      8      3\n" +
+                      "   }\n" +
+                      "}\n" +
+                      "\n" +
+                      "class 'pkg/B' {\n" +
+                      "   method 'n ()V' {\n" +
+                      "      2      4\n" +
+                      "      5      2\n" +
+                      "   }\n" +
+                      "}\n" +
+                      "\n" +
+                      "Lines mapping:\n" +
+                      "Not mapped:\n" +
+                      "10\n" +
+                      "12\n";
+    assertEquals(expected, readMapping(mapper.getBinaryMapping()));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    File classFile = new File(fixture.getTestDataDir(), "/classes/pkg/TestClassSimpleBytecodeMapping.class");
+    assertTrue(classFile.isFile());
+
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    decompiler.addSpace(classFile, true);
+    for (File inner : classFile.getParentFile().listFiles()) {
+      if (inner.getName().startsWith("TestClassSimpleBytecodeMapping$")) {
+        decompiler.addSpace(inner, true);
+      }
+    }
+    decompiler.decompileContext();
+
+    File decompiledFile = new File(fixture.getTargetDir(), "TestClassSimpleBytecodeMapping.java");
+    File mappingFile = new File(fixture.getTargetDir(), "TestClassSimpleBytecodeMapping.java.bsm");
+    assertTrue(mappingFile.isFile());
+
+    // the text mapping dumped in unit test mode has to describe the same pairs as the binary one
+    String decompiled = new String(InterpreterUtil.getBytes(decompiledFile), "UTF-8").replace("\r\n", "\n");
+    int start = decompiled.indexOf("\nclass '");
+    assertTrue(start >= 0);
+    assertEquals(decompiled.substring(start + 1), readMapping(InterpreterUtil.getBytes(mappingFile)));
+  }
+
+  // reads a binary mapping and prints it the way BytecodeSourceMapper.dumpMapping() does
+  private static String readMapping(byte[] mapping) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(mapping));
+    assertEquals(BytecodeSourceMapper.BINARY_MAPPING_MAGIC, in.readInt());
+    assertEquals(BytecodeSourceMapper.BINARY_MAPPING_VERSION, in.readShort());
+
+    StringBuilder buffer = new StringBuilder();
+    for (int classes = in.readInt(); classes > 0; classes--) {
+      buffer.append("class '").append(in.readUTF()).append("' {\n");
+      for (int methods = in.readInt(), i = 0; i < methods; i++) {
+        if (i > 0) {
+          buffer.append("\n");
+        }
+        buffer.append("   method '").append(in.readUTF()).append("' {\n");
+        for (int pairs = in.readInt(); pairs > 0; pairs--) {
+          int offset = in.readInt(), line = in.readInt();
+          buffer.append("      ").append(Integer.toHexString(offset)).append("      ").append(line - 1).append("\n");
+        }
+        buffer.append("   }\n");
+      }
+      buffer.append("}\n\n");
+    }
+
+    buffer.append("Lines mapping:\n");
+    for (int pairs = in.readInt(); pairs > 0; pairs--) {
+      int original = in.readInt();
+      buffer.append(original).append(" <-> ").append(in.readInt()).append("\n");
+    }
+
+    int unmapped = in.readInt();
+    if (unmapped > 0) {
+      buffer.append("Not mapped:\n");
+      for (; unmapped > 0; unmapped--) {
+        buffer.append(in.readInt()).append("\n");
+      }
+    }
+
+    assertEquals(-1, in.read());
+    return buffer.toString();
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler;
+
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorkLimitTest {
+  private static final String FAILED = "$FF: Couldn't be decompiled";
+
+  @Test
+  public void testDegradedRetry() throws IOException {
+    // testWhileCombined exceeds 400 units, the retry without ++/-- recovery and restructuring loops stays below
+    String full = decompile("pkg/TestClassLoop", "0");
+    String degraded = decompile("pkg/TestClassLoop", "400");
+    assertFalse(degraded.contains(FAILED));
+    assertFalse(full.equals(degraded));
+
+    // too little for the retry as well
+    assertTrue(decompile("pkg/TestClassLoop", "100").contains(FAILED));
+  }
+
+  @Test
+  public void testSameResultOnEveryRun() throws IOException {
+    // methods of both classes exceed these limits, some in degraded mode as well; unlike with mpm the outcome can't vary
+    for (String maxWork : new String[]{"100", "250", "400"}) {
+      for (String testFile : new String[]{"pkg/TestClassLoop", "pkg/TestTryCatchFinally"}) {
+        String first = decompile(testFile, maxWork);
+        for (int i = 0; i < 3; i++) {
+          assertEquals(testFile + " with mpw=" + maxWork, first, decompile(testFile, maxWork));
+        }
+      }
+    }
+    assertTrue(decompile("pkg/TestTryCatchFinally", "100").contains(FAILED));
+  }
+
+  private static String decompile(String testFile, String maxWork) throws IOException {
+    DecompilerTestFixture fixture = new DecompilerTestFixture();
+    fixture.setUp(Collections.<String, Object>singletonMap(IFernflowerPreferences.MAX_PROCESSING_WORK, maxWork));
+    try {
+      File classFile = new File(fixture.getTestDataDir(), "/classes/" + testFile + ".class");
+      assertTrue(classFile.isFile());
+
+      ConsoleDecompiler decompiler = fixture.getDecompiler();
+      decompiler.addSpace(classFile, true);
+      decompiler.decompileContext();
+
+      String name = classFile.getName().substring(0, classFile.getName().length() - 6);
+      return new String(InterpreterUtil.getBytes(new File(fixture.getTargetDir(), name + ".java")), "UTF-8");
+    }
+    finally {
+      fixture.tearDown();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StrongConnectivityHelperTest {
+
+  private static final int LARGE_SIZE = 100000;
+
+  @Test
+  public void testDeepChain() {
+    // far deeper than a recursive search could go with the default stack size
+    int[][] succs = new int[LARGE_SIZE][];
+    for (int node = 0; node < LARGE_SIZE; node++) {
+      succs[node] = node + 1 < LARGE_SIZE ? new int[]{node + 1} : new int[0];
+    }
+
+    List<int[]> components = StrongConnectivityHelper.findComponents(succs, new int[]{0});
+
+    // one component per node, the end of the chain first
+    assertEquals(LARGE_SIZE, components.size());
+    for (int i = 0; i < LARGE_SIZE; i++) {
+      assertEquals(1, components.get(i).length);
+      assertEquals(LARGE_SIZE - 1 - i, components.get(i)[0]);
+    }
+  }
+
+  @Test
+  public void testLargeCycle() {
+    int[][] succs = new int[LARGE_SIZE][];
+    for (int node = 0; node < LARGE_SIZE; node++) {
+      succs[node] = new int[]{(node + 1) % LARGE_SIZE};
+    }
+
+    List<int[]> components = StrongConnectivityHelper.findComponents(succs, new int[]{0});
+
+    assertEquals(1, components.size());
+    int[] component = components.get(0).clone();
+    Arrays.sort(component);
+    for (int i = 0; i < LARGE_SIZE; i++) {
+      assertEquals(i, component[i]);
+    }
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    Random random = new Random(42);
+    for (int n = 0; n < 300; n++) {
+      int size = 1 + random.nextInt(30);
+      int[][] succs = new int[size][];
+      for (int node = 0; node < size; node++) {
+        succs[node] = new int[random.nextInt(4)];
+        for (int i = 0; i < succs[node].length; i++) {
+          succs[node][i] = random.nextInt(size);
+        }
+      }
+      int[] roots = new int[size];
+      for (int node = 0; node < size; node++) {
+        roots[node] = node;
+      }
+
+      checkComponents(succs, StrongConnectivityHelper.findComponents(succs, roots));
+    }
+  }
+
+  @Test
+  public void testCycleThroughRoot() {
+    // the root is part of its tree from the start, reaching it again must not lose the cycle
+    int[][] succs = {{1, 2}, {}, {0}};
+    List<int[]> components = StrongConnectivityHelper.findComponents(succs, new int[]{0, 1, 2});
+
+    assertEquals(2, components.size());
+    assertTrue(Arrays.equals(new int[]{1}, components.get(0)));
+    assertTrue(Arrays.equals(new int[]{2, 0}, components.get(1)));
+  }
+
+  // every node in exactly one component, two nodes share a component iff they reach each other,
+  // and no component reaches a component found after it
+  private static void checkComponents(int[][] succs, List<int[]> components) {
+    int size = succs.length;
+    boolean[][] reaches = new boolean[size][];
+    for (int node = 0; node < size; node++) {
+      reaches[node] = getReachable(succs, node);
+    }
+
+    int[] componentOf = new int[size];
+    Arrays.fill(componentOf, -1);
+    for (int i = 0; i < components.size(); i++) {
+      for (int node : components.get(i)) {
+        assertEquals(-1, componentOf[node]);
+        componentOf[node] = i;
+      }
+    }
+
+    for (int node = 0; node < size; node++) {
+      assertTrue(componentOf[node] >= 0);
+      for (int other = 0; other < size; other++) {
+        boolean mutual = reaches[node][other] && reaches[other][node];
+        assertEquals(mutual, componentOf[node] == componentOf[other]);
+        if (reaches[node][other]) {
+          assertTrue(componentOf[other] <= componentOf[node]);
+        }
+      }
+    }
+  }
+
+  private static boolean[] getReachable(int[][] succs, int start) {
+    boolean[] reachable = new boolean[succs.length];
+    List<Integer> stack = new ArrayList<Integer>();
+    reachable[start] = true;
+    stack.add(start);
+    while (!stack.isEmpty()) {
+      int node = stack.remove(stack.size() - 1);
+      for (int succ : succs[node]) {
+        if (!reachable[succ]) {
+          reachable[succ] = true;
+          stack.add(succ);
+        }
+      }
+    }
+    return reachable;
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.decompose;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+public class FastDominatorHelperTest {
+
+  @Test
+  public void testSmallRandomGraphs() {
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      int[][] preds = randomGraph(random, 2 + random.nextInt(40), random.nextInt(60));
+      int[] expected = calcIDomsBruteForce(preds);
+      assertArrayEquals(expected, FastDominatorHelper.calcIDomsIterative(preds, singleRoot(preds.length)));
+      assertArrayEquals(expected, FastDominatorHelper.calcIDomsLengauerTarjan(preds));
+    }
+  }
+
+  @Test
+  public void testLargeRandomGraphs() {
+    Random random = new Random(4242);
+    for (int i = 0; i < 20; i++) {
+      int size = FastDominatorHelper.LENGAUER_TARJAN_THRESHOLD + random.nextInt(20000);
+      int[][] preds = randomGraph(random, size, random.nextInt(2 * size));
+      int[] expected = FastDominatorHelper.calcIDomsIterative(preds, singleRoot(size));
+      assertArrayEquals(expected, FastDominatorHelper.calcIDomsLengauerTarjan(preds));
+      assertArrayEquals(expected, FastDominatorHelper.calcIDoms(preds, singleRoot(size)));
+    }
+  }
+
+  @Test
+  public void testDeepChain() {
+    // a chain of 50000 nodes with loops back to earlier nodes, deeper than any recursive search could go
+    int size = 50000;
+    Random random = new Random(7);
+    List<List<Integer>> succs = newLists(size);
+    for (int node = 1; node < size; node++) {
+      succs.get(node - 1).add(node);
+      if (random.nextInt(4) == 0) {
+        succs.get(node).add(random.nextInt(node));
+      }
+    }
+    int[][] preds = toPreds(succs);
+
+    int[] expected = new int[size];
+    for (int node = 1; node < size; node++) {
+      expected[node] = node - 1;
+    }
+    assertArrayEquals(expected, FastDominatorHelper.calcIDomsLengauerTarjan(preds));
+    assertArrayEquals(expected, FastDominatorHelper.calcIDoms(preds, singleRoot(size)));
+  }
+
+  @Test
+  public void testUnreachableNode() {
+    int[][] preds = {{}, {}, {0}};
+    assertNull(FastDominatorHelper.calcIDomsLengauerTarjan(preds));
+    assertArrayEquals(new int[]{0, 1, 0}, FastDominatorHelper.calcIDomsIterative(preds, new boolean[]{true, true, false}));
+  }
+
+  // random graph rooted at node 0, every node is reachable and numbered in reverse post order
+  private static int[][] randomGraph(Random random, int size, int extraEdges) {
+    List<List<Integer>> succs = newLists(size);
+    for (int node = 1; node < size; node++) {
+      succs.get(random.nextInt(node)).add(node);
+    }
+    for (int i = 0; i < extraEdges; i++) {
+      succs.get(random.nextInt(size)).add(random.nextInt(size));
+    }
+
+    // reverse post order of an iterative depth-first search
+    int[] number = new int[size];
+    Arrays.fill(number, -1);
+    boolean[] visited = new boolean[size];
+    int[] stackNode = new int[size];
+    int[] stackEdge = new int[size];
+    int top = 0, next = size;
+    visited[0] = true;
+    while (top >= 0) {
+      int node = stackNode[top];
+      if (stackEdge[top] < succs.get(node).size()) {
+        int succ = succs.get(node).get(stackEdge[top]++);
+        if (!visited[succ]) {
+          visited[succ] = true;
+          top++;
+          stackNode[top] = succ;
+          stackEdge[top] = 0;
+        }
+      }
+      else {
+        number[node] = --next;
+        top--;
+      }
+    }
+
+    List<List<Integer>> renumbered = newLists(size);
+    for (int node = 0; node < size; node++) {
+      for (int succ : succs.get(node)) {
+        renumbered.get(number[node]).add(number[succ]);
+      }
+    }
+    return toPreds(renumbered);
+  }
+
+  // a strict dominator of the node dominated by all the other ones
+  private static int[] calcIDomsBruteForce(int[][] preds) {
+    int size = preds.length;
+    boolean[][] dominates = new boolean[size][];
+    for (int node = 0; node < size; node++) {
+      boolean[] reachable = reachableWithout(preds, node);
+      dominates[node] = new boolean[size];
+      for (int other = 0; other < size; other++) {
+        dominates[node][other] = node == 0 || node == other || !reachable[other];
+      }
+    }
+
+    int[] idoms = new int[size];
+    for (int node = 1; node < size; node++) {
+      for (int dom = 0; dom < size; dom++) {
+        if (dom != node && dominates[dom][node]) {
+          boolean immediate = true;
+          for (int other = 0; other < size; other++) {
+            if (other != node && other != dom && dominates[other][node] && !dominates[other][dom]) {
+              immediate = false;
+            }
+          }
+          if (immediate) {
+            idoms[node] = dom;
+          }
+        }
+      }
+    }
+    return idoms;
+  }
+
+  private static boolean[] reachableWithout(int[][] preds, int removed) {
+    int size = preds.length;
+    boolean[] reachable = new boolean[size];
+    if (removed == 0) {
+      return reachable;
+    }
+    reachable[0] = true;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int node = 1; node < size; node++) {
+        if (!reachable[node] && node != removed) {
+          for (int pred : preds[node]) {
+            if (reachable[pred]) {
+              reachable[node] = changed = true;
+              break;
+            }
+          }
+        }
+      }
+    }
+    return reachable;
+  }
+
+  private static boolean[] singleRoot(int size) {
+    boolean[] roots = new boolean[size];
+    roots[0] = true;
+    return roots;
+  }
+
+  private static List<List<Integer>> newLists(int size) {
+    List<List<Integer>> lists = new ArrayList<List<Integer>>(size);
+    for (int i = 0; i < size; i++) {
+      lists.add(new ArrayList<Integer>());
+    }
+    return lists;
+  }
+
+  private static int[][] toPreds(List<List<Integer>> succs) {
+    List<List<Integer>> predLists = newLists(succs.size());
+    for (int node = 0; node < succs.size(); node++) {
+      for (int succ : succs.get(node)) {
+        predLists.get(succ).add(node);
+      }
+    }
+    int[][] preds = new int[succs.size()][];
+    for (int node = 0; node < preds.length; node++) {
+      List<Integer> lst = predLists.get(node);
+      preds[node] = new int[lst.size()];
+      for (int i = 0; i < lst.size(); i++) {
+        preds[node][i] = lst.get(i);
+      }
+    }
+    return preds;
+  }
+}